@@ -0,0 +1,114 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking listings of a booker and of an owner for every state, against the server context on an embedded H2
+ * seeded with {@value #USERS} users, {@value #ITEMS} items and {@value #BOOKINGS_PER_ITEM} bookings of each item
+ * spread over two months around now, so that every state has rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+    private static final int USERS = 1000;
+    private static final int ITEMS = 5000;
+    private static final int BOOKINGS_PER_ITEM = 20;
+    private static final int USER_ID = 1;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    private String state;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.ru.practicum.shareit=warn");
+        seed(context.getBean(JdbcTemplate.class));
+        bookingService = context.getBean(BookingService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDtoOutgoing> getUserBookings() {
+        return bookingService.getUserBookings(USER_ID, state, 0, PAGE_SIZE, null);
+    }
+
+    @Benchmark
+    public List<BookingDtoOutgoing> getOwnerBookings() {
+        return bookingService.getOwnerBookings(USER_ID, state, 0, PAGE_SIZE, null);
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int id = 1; id <= USERS; id++) {
+            users.add(new Object[]{id, "user" + id, "user" + id + "@email.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+
+        List<Object[]> items = new ArrayList<>(ITEMS);
+        int[] owners = new int[ITEMS + 1];
+        for (int id = 1; id <= ITEMS; id++) {
+            owners[id] = 1 + random.nextInt(USERS);
+            items.add(new Object[]{id, "item" + id, "item" + id + " description", true, owners[id]});
+        }
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner) values (?, ?, ?, ?, ?)", items);
+
+        LocalDateTime from = LocalDateTime.now().minusDays(BOOKINGS_PER_ITEM * 3 / 2);
+        BookingStatus[] statuses = BookingStatus.values();
+        List<Object[]> bookings = new ArrayList<>(ITEMS * BOOKINGS_PER_ITEM);
+        for (int itemId = 1; itemId <= ITEMS; itemId++) {
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                LocalDateTime start = from.plusDays(3L * i).plusHours(random.nextInt(24));
+                int bookerId = 1 + random.nextInt(USERS);
+                if (bookerId == owners[itemId]) {
+                    bookerId = bookerId % USERS + 1;
+                }
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(2)), itemId, bookerId,
+                        statuses[random.nextInt(statuses.length)].name(), owners[itemId]});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (start_time, end_time, item_id, booker_id, status, item_owner_id) values (?, ?, ?, ?, ?, ?)", bookings);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.comment.CommentDto;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
+import ru.practicum.shareit.item.model.item.ItemMapper;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private Item item;
+    private Booking last;
+    private Booking next;
+    private List<CommentDto> commentDtoList;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        User owner = new User(1, "owner", "owner@email.com");
+        User booker = new User(2, "booker", "booker@email.com");
+        Request request = new Request(1, "request description", booker, now.minusDays(7));
+        item = new Item(1, "item", "item description", true, owner, request);
+        last = new Booking(1, now.minusDays(2), now.minusDays(1), item, booker, BookingStatus.APPROVED);
+        next = new Booking(2, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING);
+        commentDtoList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            commentDtoList.add(new CommentDto(i, "comment " + i, booker.getName(), now.minusHours(i)));
+        }
+    }
+
+    @Benchmark
+    public ItemDto itemToDto() {
+        return ItemMapper.itemToDto(item, last, next, commentDtoList);
+    }
+
+    @Benchmark
+    public BookingDtoOutgoing bookingToDtoOutgoing() {
+        return BookingMapper.bookingToDtoOutgoing(last);
+    }
+}
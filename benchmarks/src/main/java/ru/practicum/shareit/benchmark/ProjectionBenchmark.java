@@ -0,0 +1,154 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.booking.repository.OffsetPageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A page of the bookings of an owner read as entities with their item and booker and then mapped, against the same
+ * page selected as BookingDtoOutgoing rows, both in a read-only transaction. Both read the first page from the cursor
+ * with the predicate, order and limit of MemoryBooking.findByItemOwnerIdAfter. Run it with {@code -prof gc}, the
+ * {@code gc.alloc.rate.norm} of the two methods is the allocation per page.
+ * The embedded H2 is seeded with {@value #USERS} users owning {@value #ITEMS_PER_USER} items each and
+ * {@value #BOOKINGS_PER_ITEM} bookings of every item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int USERS = 100;
+    private static final int ITEMS_PER_USER = 20;
+    private static final int BOOKINGS_PER_ITEM = 20;
+    private static final int OWNER_ID = 1;
+    /*
+     * The query of MemoryBooking.findByItemOwnerIdAfter with the same predicate, order and limit, only loading the
+     * bookings with their item and booker as entities instead of selecting the columns of BookingDtoOutgoing.
+     */
+    private static final String OWNER_BOOKINGS = "select b from Booking as b " +
+            "join fetch b.item as i left join i.request as r join fetch b.booker as u " +
+            "where b.itemOwnerId = ?1 and " + MemoryBooking.AFTER_CURSOR + MemoryBooking.BY_START_AND_ID;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemoryBooking memoryBooking;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:projection;DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.ru.practicum.shareit=warn");
+        seed(context.getBean(JdbcTemplate.class));
+        memoryBooking = context.getBean(MemoryBooking.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        if (!ids(entities()).equals(ids(projection()))) {
+            throw new IllegalStateException("Entities and projection read different pages");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDtoOutgoing> entities() {
+        return readOnly.execute(status -> entityManager.createQuery(OWNER_BOOKINGS, Booking.class)
+                .setParameter(1, OWNER_ID)
+                .setParameter(2, BookingCursor.FIRST.getStart())
+                .setParameter(3, BookingCursor.FIRST.getId())
+                .setMaxResults(pageSize)
+                .getResultList()
+                .stream()
+                .map(BookingMapper::bookingToDtoOutgoing)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<BookingDtoOutgoing> projection() {
+        return readOnly.execute(status -> memoryBooking.findByItemOwnerIdAfter(OWNER_ID,
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), new OffsetPageRequest(0, pageSize)));
+    }
+
+    private static List<Integer> ids(List<BookingDtoOutgoing> bookings) {
+        return bookings.stream().map(BookingDtoOutgoing::getId).collect(Collectors.toList());
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int id = 1; id <= USERS; id++) {
+            users.add(new Object[]{id, "user" + id, "user" + id + "@email.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+
+        int itemCount = USERS * ITEMS_PER_USER;
+        List<Object[]> items = new ArrayList<>(itemCount);
+        for (int id = 1; id <= itemCount; id++) {
+            int owner = (id - 1) % USERS + 1;
+            items.add(new Object[]{id, "item" + id, "item" + id + " description", true, owner});
+        }
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner) values (?, ?, ?, ?, ?)", items);
+
+        LocalDateTime from = LocalDateTime.now().minusDays(BOOKINGS_PER_ITEM * 3 / 2);
+        List<Object[]> bookings = new ArrayList<>(itemCount * BOOKINGS_PER_ITEM);
+        for (int itemId = 1; itemId <= itemCount; itemId++) {
+            int owner = (itemId - 1) % USERS + 1;
+            for (int i = 0; i < BOOKINGS_PER_ITEM; i++) {
+                LocalDateTime start = from.plusDays(3L * i).plusHours(random.nextInt(24));
+                int bookerId = 1 + random.nextInt(USERS);
+                if (bookerId == owner) {
+                    bookerId = bookerId % USERS + 1;
+                }
+                bookings.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(2)), itemId, bookerId,
+                        BookingStatus.APPROVED.name(), owner});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (start_time, end_time, item_id, booker_id, status, item_owner_id) values (?, ?, ?, ?, ?, ?)", bookings);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.request.model.RequestDto;
+import ru.practicum.shareit.request.service.RequestService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request listings with their items, the own requests of a user and a page of the requests of others, against
+ * the server context on an embedded H2. The requestor has the given number of requests and every request has
+ * {@value #ITEMS_PER_REQUEST} items of the other user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestServiceBenchmark {
+    private static final int ITEMS_PER_REQUEST = 3;
+    private static final int REQUESTOR_ID = 1;
+    private static final int OWNER_ID = 2;
+
+    @Param({"10", "100", "1000"})
+    private int requests;
+
+    private ConfigurableApplicationContext context;
+    private RequestService requestService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:requests;DB_CLOSE_DELAY=-1",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.ru.practicum.shareit=warn");
+        seed(context.getBean(JdbcTemplate.class));
+        requestService = context.getBean(RequestService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<RequestDto> getItemRequestsByUserId() {
+        return requestService.getItemRequestsByUserId(REQUESTOR_ID);
+    }
+
+    @Benchmark
+    public List<RequestDto> getAllItemRequests() {
+        return requestService.getAllItemRequests(OWNER_ID, 0, requests);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("insert into users (id, name, email) values (?, 'requestor', 'requestor@email.com')", REQUESTOR_ID);
+        jdbcTemplate.update("insert into users (id, name, email) values (?, 'owner', 'owner@email.com')", OWNER_ID);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> requestRows = new ArrayList<>(requests);
+        List<Object[]> items = new ArrayList<>(requests * ITEMS_PER_REQUEST);
+        for (int i = 1; i <= requests; i++) {
+            requestRows.add(new Object[]{i, "request " + i, REQUESTOR_ID, Timestamp.valueOf(now.minusMinutes(i))});
+            for (int j = 0; j < ITEMS_PER_REQUEST; j++) {
+                int id = (i - 1) * ITEMS_PER_REQUEST + j + 1;
+                items.add(new Object[]{id, "item " + id, "item " + id + " description", true, OWNER_ID, i});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into item_requests (id, description, requestor_id, created) values (?, ?, ?, ?)", requestRows);
+        jdbcTemplate.batchUpdate("insert into items (id, name, description, is_available, owner, request_id) values (?, ?, ?, ?, ?, ?)", items);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.ShareItGateway;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.ItemDto;
+import ru.practicum.shareit.user.model.UserDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of owner bookings proxied by the gateway from a stub server answering with a fixed JSON body.
+ * {@code passthrough} is the BaseClient path, the body bytes are written as they came. {@code parseAndWrite} is the
+ * path BaseClient had before, the body read as {@code Object} into a tree of maps and written again by Jackson, as
+ * MVC did with it. Both use the WebClient of the gateway context with its connection pool and codecs. The stub
+ * writes the headers and the body apart, so it turns Nagle's algorithm off, as Tomcat does, not to wait for the ACK.
+ * Run with {@code -prof gc} to see the allocation per request in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayPassthroughBenchmark {
+    private static final int OWNER_ID = 1;
+
+    @Param({"10", "100", "1000"})
+    private int bookings;
+
+    private HttpServer server;
+    private ConfigurableApplicationContext context;
+    private BookingClient bookingClient;
+    private WebClient objectClient;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] body = body();
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/bookings", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String serverUrl = "http://localhost:" + server.getAddress().getPort();
+
+        context = new SpringApplicationBuilder(ShareItGateway.class)
+                .web(WebApplicationType.NONE)
+                .run("--shareit-server.url=" + serverUrl,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.ru.practicum.shareit=warn");
+        bookingClient = context.getBean(BookingClient.class);
+        objectClient = context.getBean(WebClient.Builder.class)
+                .baseUrl(serverUrl + "/bookings")
+                .build();
+        mapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> parseAndWrite() throws IOException {
+        ResponseEntity<Object> entity = objectClient
+                .get()
+                .uri("/owner?state=ALL&from=0&size={size}", bookings)
+                .header("X-Sharer-User-Id", String.valueOf(OWNER_ID))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> response.toEntity(Object.class))
+                .block();
+        mapper.writeValue(OutputStream.nullOutputStream(), entity.getBody());
+        return entity;
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> passthrough() throws IOException {
+        ResponseEntity<byte[]> entity = bookingClient.getOwnerBookings(OWNER_ID, "ALL", 0, bookings, null).block();
+        OutputStream.nullOutputStream().write(entity.getBody());
+        return entity;
+    }
+
+    private byte[] body() throws IOException {
+        ObjectMapper serverMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDtoOutgoing> list = new ArrayList<>(bookings);
+        for (int i = 1; i <= bookings; i++) {
+            ItemDto item = new ItemDto(i, "item " + i, "item " + i + " description", true, null, null, null, null);
+            UserDto booker = new UserDto(i, "user " + i, "user" + i + "@email.com");
+            list.add(new BookingDtoOutgoing(i, now.plusDays(i), now.plusDays(i + 1), item, booker, BookingStatus.WAITING));
+        }
+        return serverMapper.writeValueAsBytes(list);
+    }
+}
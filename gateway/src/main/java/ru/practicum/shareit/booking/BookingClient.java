@@ -3,15 +3,17 @@ package ru.practicum.shareit.booking;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -20,21 +22,20 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder) {
         super(
                 builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .baseUrl(serverUrl + API_PREFIX)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> addBooking(int userId, BookingDtoDefault bookingDtoDefault) {
+    public Mono<ResponseEntity<byte[]>> addBooking(int userId, BookingDtoDefault bookingDtoDefault) {
         log.info("addBooking userId: {} booking: {}", bookingDtoDefault, userId);
         return post("", userId, bookingDtoDefault);
     }
 
-    public ResponseEntity<Object> approveBooking(int userId, int bookingId, boolean approved) {
+    public Mono<ResponseEntity<byte[]>> approveBooking(int userId, int bookingId, boolean approved) {
         log.info("approveBooking bookingId: {} userId: {} approved: {}", bookingId, userId, approved);
         return patch("/" + bookingId + "?approved={approved}",
                 userId,
@@ -43,30 +44,41 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> getById(int userId, int bookingId) {
+    public Mono<ResponseEntity<byte[]>> getById(int userId, int bookingId) {
         log.info("getById bookingId: {} userId: {}", bookingId, userId);
         return get("/" + bookingId, userId, null);
     }
 
-    public ResponseEntity<Object> getUserBookings(int userId, String state, int from, int size) {
-        log.info("getUserBookings userId: {}", userId);
+    public Mono<ResponseEntity<byte[]>> getUserBookings(int userId, String state, int from, int size, String cursor) {
+        log.info("getUserBookings userId: {} cursor: {}", userId, cursor);
         BookingState.getBookingState(state);
-        Map<String, Object> parameters = Map.of(
-                "state", state,
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return get(listingQuery(cursor), userId, listingParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> getOwnerBookings(int userId, String state, int from, int size) {
-        log.info("getOwnerBookings userId: {}", userId);
+    public Mono<ResponseEntity<byte[]>> getOwnerBookings(int userId, String state, int from, int size, String cursor) {
+        log.info("getOwnerBookings userId: {} cursor: {}", userId, cursor);
         BookingState.getBookingState(state);
-        Map<String, Object> parameters = Map.of(
-                "state", state,
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return get("/owner" + listingQuery(cursor), userId, listingParameters(state, from, size, cursor));
+    }
+
+    public void exportOwnerBookings(int userId, HttpServletResponse response) throws IOException {
+        log.info("exportOwnerBookings userId: {}", userId);
+        stream("/owner/export", userId, response);
+    }
+
+    private static String listingQuery(String cursor) {
+        String query = "?state={state}&from={from}&size={size}";
+        return cursor == null ? query : query + "&cursor={cursor}";
+    }
+
+    private static Map<String, Object> listingParameters(String state, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state);
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
\ No newline at end of file
@@ -4,11 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/bookings")
@@ -18,7 +21,7 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> addBooking(
+    public Mono<ResponseEntity<byte[]>> addBooking(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @Valid @RequestBody BookingDtoDefault bookingDtoDefault
     ) {
@@ -26,7 +29,7 @@ public class BookingController {
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approveBooking(
+    public Mono<ResponseEntity<byte[]>> approveBooking(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @PathVariable int bookingId,
             @RequestParam boolean approved
@@ -35,27 +38,41 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getById(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int bookingId) {
+    public Mono<ResponseEntity<byte[]>> getById(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int bookingId) {
         return bookingClient.getById(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserBookings(
+    public Mono<ResponseEntity<byte[]>> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        return bookingClient.getUserBookings(userId, state, from, size);
+        return bookingClient.getUserBookings(userId, state, from, size, cursor);
+    }
+
+    /**
+     * Passes the newline delimited JSON of all bookings of the user's items through while the server writes it,
+     * see ItemController#exportItems.
+     */
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            HttpServletResponse response
+    ) throws IOException {
+        bookingClient.exportOwnerBookings(userId, response);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnerBookings(
+    public Mono<ResponseEntity<byte[]>> getOwnerBookings(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        return bookingClient.getOwnerBookings(userId, state, from, size);
+        return bookingClient.getOwnerBookings(userId, state, from, size, cursor);
     }
 }
\ No newline at end of file
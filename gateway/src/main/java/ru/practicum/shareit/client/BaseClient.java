@@ -1,78 +1,285 @@
 package ru.practicum.shareit.client;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpEntity;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.exception.BatchFormatException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class BaseClient {
-    private final RestTemplate restTemplate;
+    /**
+     * Headers of the server response that describe the body or the resource and are passed to the gateway client.
+     * Headers of the connection between the gateway and the server, like Transfer-Encoding, are never copied.
+     */
+    private static final List<String> PASSED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.LOCATION,
+            "X-Next-Cursor"
+    );
 
-    protected ResponseEntity<Object> get(String path, Integer userId, Map<String, Object> parameters) {
+    /**
+     * Headers of the gateway request that are passed to the server. The server answers a matching If-None-Match
+     * with 304, so an unchanged body is neither built by the server nor sent by the gateway.
+     */
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            HttpHeaders.IF_NONE_MATCH
+    );
+
+    /**
+     * Server body buffers a stream holds ahead of the gateway response.
+     */
+    private static final int STREAM_PREFETCH = 4;
+
+    /**
+     * A streamed body is newline delimited JSON, errors are still answered with JSON.
+     */
+    private static final List<MediaType> STREAM_ACCEPT = List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON);
+
+    private final WebClient webClient;
+
+    protected Mono<ResponseEntity<byte[]>> get(String path, Integer userId, Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> post(String path, Integer userId, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<byte[]>> patch(String path, Integer userId, Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId) {
+    protected Mono<ResponseEntity<byte[]>> delete(String path, Integer userId) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, null, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(
+    /**
+     * Copies a GET response of the server to the gateway response while its body arrives, for bodies that are too
+     * large to hold, like the exports. Buffers are written as they are read, so the gateway holds at most
+     * {@link #STREAM_PREFETCH} of them, and a slow client slows down the reading from the server.
+     */
+    protected void stream(String path, Integer userId, HttpServletResponse gatewayResponse) throws IOException {
+        HttpHeaders forwarded = forwardedHeaders();
+        ResponseEntity<Flux<DataBuffer>> response = retrieveStream(webClient
+                .get()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId, forwarded));
+                    headers.setAccept(STREAM_ACCEPT);
+                }));
+        copyHeaders(response, gatewayResponse);
+        try (InputStream in = new BufferInputStream(response.getBody())) {
+            in.transferTo(gatewayResponse.getOutputStream());
+        }
+    }
+
+    /**
+     * Sends the rows of a batch to the server while they are read from the gateway request and copies the server
+     * response while it arrives, adding the errors of the rows the gateway rejected to a successful one.
+     * A malformed row found after the sending started fails the request with its BatchFormatException.
+     */
+    protected void postBatch(String path, Integer userId, BatchRows rows, HttpServletResponse gatewayResponse) throws IOException {
+        HttpHeaders forwarded = forwardedHeaders();
+        ResponseEntity<Flux<DataBuffer>> response;
+        try {
+            response = retrieveStream(webClient
+                    .post()
+                    .uri(path)
+                    .headers(headers -> headers.addAll(defaultHeaders(userId, forwarded)))
+                    .body(BodyInserters.fromDataBuffers(rows.getBody())));
+        } catch (RuntimeException e) {
+            throw batchFormatCause(e);
+        }
+        copyHeaders(response, gatewayResponse);
+        try (InputStream in = new BufferInputStream(response.getBody())) {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                rows.mergeErrors(in, gatewayResponse.getOutputStream());
+            } else {
+                in.transferTo(gatewayResponse.getOutputStream());
+            }
+        }
+    }
+
+    private static ResponseEntity<Flux<DataBuffer>> retrieveStream(WebClient.RequestHeadersSpec<?> request) {
+        return request
+                .retrieve()
+                .onStatus(status -> true, serverResponse -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .block();
+    }
+
+    private static void copyHeaders(ResponseEntity<?> response, HttpServletResponse gatewayResponse) {
+        gatewayResponse.setStatus(response.getStatusCodeValue());
+        for (String name : PASSED_HEADERS) {
+            for (String value : response.getHeaders().getOrEmpty(name)) {
+                gatewayResponse.addHeader(name, value);
+            }
+        }
+    }
+
+    private static RuntimeException batchFormatCause(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchFormatException) {
+                return (BatchFormatException) cause;
+            }
+        }
+        return e;
+    }
+
+    private <T> Mono<ResponseEntity<byte[]>> makeAndSendRequest(
             HttpMethod method,
             String path,
             Integer userId,
             Map<String, Object> parameters,
             T body
     ) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
-
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = restTemplate.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = restTemplate.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
-        }
-        return prepareGatewayResponse(shareitServerResponse);
+        HttpHeaders forwarded = forwardedHeaders();
+        WebClient.RequestBodySpec request = webClient
+                .method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId, forwarded)));
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+        return requestWithBody.exchangeToMono(response -> prepareGatewayResponse(response, forwarded));
     }
 
-    private HttpHeaders defaultHeaders(Integer userId) {
+    private HttpHeaders defaultHeaders(Integer userId, HttpHeaders forwarded) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        forwarded.forEach((name, values) -> values.forEach(value -> headers.add(name, serverEtags(value))));
+        return headers;
+    }
+
+    /**
+     * {@link #FORWARDED_HEADERS} of the gateway request handled by the current thread, if there is one.
+     */
+    private static HttpHeaders forwardedHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return headers;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        for (String name : FORWARDED_HEADERS) {
+            Enumeration<String> values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                headers.add(name, values.nextElement());
+            }
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * Turns the ETags of compressed bodies back into the server ETags, see {@link GzipResponseAdvice}.
+     */
+    private static String serverEtags(String value) {
+        return value.replace(GzipResponseAdvice.ETAG_SUFFIX + "\"", "\"");
+    }
+
+    /**
+     * Passes the body bytes of the server response as they are, without parsing them, with its status and headers.
+     * A 304 keeps the ETag the client asked with, so a client holding the compressed body keeps its ETag.
+     * The body is held up to {@code spring.codec.max-in-memory-size}, pages are not limited in size, so the limit
+     * is far above the default 256 KiB of the codecs. Bodies without a bound, like the exports, are streamed.
+     */
+    private static Mono<ResponseEntity<byte[]>> prepareGatewayResponse(ClientResponse response, HttpHeaders forwarded) {
+        return response.toEntity(byte[].class)
+                .map(entity -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    for (String name : PASSED_HEADERS) {
+                        List<String> values = entity.getHeaders().get(name);
+                        if (values != null) {
+                            headers.put(name, values);
+                        }
+                    }
+                    String etag = headers.getETag();
+                    if (entity.getStatusCode() == HttpStatus.NOT_MODIFIED && etag != null && etag.endsWith("\"")) {
+                        String compressedEtag = etag.substring(0, etag.length() - 1) + GzipResponseAdvice.ETAG_SUFFIX + "\"";
+                        if (forwarded.getIfNoneMatch().contains(compressedEtag)) {
+                            headers.setETag(compressedEtag);
+                        }
+                    }
+                    return new ResponseEntity<>(entity.getBody(), headers, entity.getStatusCode());
+                });
+    }
+
+    /**
+     * The body buffers of a server response read one at a time. A buffer is released once it has been read,
+     * closing the stream cancels the rest of the body.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final Stream<DataBuffer> buffers;
+        private final Iterator<DataBuffer> iterator;
+        private DataBuffer current;
+
+        private BufferInputStream(Flux<DataBuffer> body) {
+            buffers = body
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .toStream(STREAM_PREFETCH);
+            iterator = buffers.iterator();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
         }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            while (current == null || current.readableByteCount() == 0) {
+                release();
+                if (!iterator.hasNext()) {
+                    return -1;
+                }
+                current = iterator.next();
+            }
+            int count = Math.min(length, current.readableByteCount());
+            current.read(bytes, offset, count);
+            return count;
+        }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        @Override
+        public void close() {
+            release();
+            buffers.close();
         }
 
-        return responseBuilder.build();
+        private void release() {
+            if (current != null) {
+                DataBufferUtils.release(current);
+                current = null;
+            }
+        }
     }
-}
\ No newline at end of file
+}
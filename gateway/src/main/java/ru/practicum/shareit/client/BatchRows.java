@@ -0,0 +1,89 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Validated rows of a batch request: the JSON array passed to the server, with null in place of every invalid row,
+ * and the errors of the invalid rows by their index. The array is read from the request while the server reads it,
+ * so the errors are complete once the server has answered.
+ */
+@Getter
+public class BatchRows {
+    private final Flux<DataBuffer> body;
+    private final SortedMap<Integer, String> errors;
+    private final ObjectMapper objectMapper;
+
+    BatchRows(Flux<DataBuffer> body, SortedMap<Integer, String> errors, ObjectMapper objectMapper) {
+        this.body = body;
+        this.errors = errors;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Copies a successful server response while it is read, adding the errors of the rows rejected by the gateway
+     * to its errors in the order of their indexes. Only one server error at a time is held.
+     */
+    public void mergeErrors(InputStream serverBody, OutputStream out) throws IOException {
+        if (errors.isEmpty()) {
+            serverBody.transferTo(out);
+            return;
+        }
+        JsonFactory factory = objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(serverBody);
+             JsonGenerator generator = factory.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object from the server");
+            }
+            generator.writeStartObject();
+            boolean merged = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                generator.writeFieldName(name);
+                if (parser.nextToken() == JsonToken.START_ARRAY && name.equals("errors")) {
+                    generator.writeStartArray();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonNode error = objectMapper.readTree(parser);
+                        writeErrorsBefore(generator, error.path("index").asInt());
+                        generator.writeTree(error);
+                    }
+                    writeErrorsBefore(generator, Integer.MAX_VALUE);
+                    generator.writeEndArray();
+                    merged = true;
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            if (!merged) {
+                generator.writeArrayFieldStart("errors");
+                writeErrorsBefore(generator, Integer.MAX_VALUE);
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeErrorsBefore(JsonGenerator generator, int index) throws IOException {
+        SortedMap<Integer, String> before = errors.headMap(index);
+        for (Map.Entry<Integer, String> error : before.entrySet()) {
+            generator.writeStartObject();
+            generator.writeNumberField("index", error.getKey());
+            generator.writeStringField("error", error.getValue());
+            generator.writeEndObject();
+        }
+        before.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.shareit.exception.BatchFormatException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Validates the rows of a batch request the way a single row is validated, one row at a time as the array is read.
+ * An invalid row does not fail the request: the server gets null in its place, so the indexes of the server
+ * response stay those of the request, and its error is added to the errors of the server response.
+ * Rows are passed on in chunks of about {@value #CHUNK_SIZE} bytes when the server asks for them, so the gateway
+ * never holds the whole array.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchValidator {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * Checks that the body is an array right away, the rows are read once the returned body is subscribed to.
+     */
+    public BatchRows validate(InputStream body, Class<?> type) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(body);
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BatchFormatException("Expected a JSON array");
+            }
+        } catch (JsonProcessingException e) {
+            parser.close();
+            throw new BatchFormatException("Malformed JSON: " + e.getOriginalMessage());
+        } catch (BatchFormatException e) {
+            parser.close();
+            throw e;
+        }
+        SortedMap<Integer, String> errors = new ConcurrentSkipListMap<>();
+        Flux<DataBuffer> rows = Flux.generate(() -> new RowReader(parser, type, errors), RowReader::next, RowReader::close)
+                .subscribeOn(Schedulers.boundedElastic());
+        return new BatchRows(rows, errors, objectMapper);
+    }
+
+    private String validate(JsonNode row, Class<?> type) {
+        if (!row.isObject()) {
+            return "Expected a JSON object";
+        }
+        Object value;
+        try {
+            value = objectMapper.treeToValue(row, type);
+        } catch (JsonProcessingException e) {
+            return "Malformed row: " + e.getOriginalMessage();
+        }
+        return validator.validate(value).stream()
+                .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(BatchValidator::describe)
+                .orElse(null);
+    }
+
+    private static String describe(ConstraintViolation<?> violation) {
+        return violation.getPropertyPath() + " " + violation.getMessage();
+    }
+
+    /**
+     * Reads the rows after the opening bracket and writes the validated ones to a chunk that is reused.
+     */
+    private class RowReader {
+        private final JsonParser parser;
+        private final Class<?> type;
+        private final SortedMap<Integer, String> errors;
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE * 2);
+        private final JsonGenerator generator;
+        private int index;
+        private boolean finished;
+
+        private RowReader(JsonParser parser, Class<?> type, SortedMap<Integer, String> errors) {
+            this.parser = parser;
+            this.type = type;
+            this.errors = errors;
+            try {
+                generator = objectMapper.getFactory().createGenerator(chunk);
+                generator.writeStartArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private RowReader next(SynchronousSink<DataBuffer> sink) {
+            if (finished) {
+                sink.complete();
+                return this;
+            }
+            try {
+                while (chunk.size() < CHUNK_SIZE && !finished) {
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        generator.writeEndArray();
+                        finished = true;
+                    } else {
+                        writeRow(objectMapper.readTree(parser));
+                    }
+                }
+                generator.flush();
+                sink.next(DefaultDataBufferFactory.sharedInstance.wrap(chunk.toByteArray()));
+                chunk.reset();
+            } catch (JsonProcessingException e) {
+                sink.error(new BatchFormatException("Malformed JSON: " + e.getOriginalMessage()));
+            } catch (IOException e) {
+                sink.error(new UncheckedIOException(e));
+            }
+            return this;
+        }
+
+        private void writeRow(JsonNode row) throws IOException {
+            String error = validate(row, type);
+            if (error == null) {
+                generator.writeTree(row);
+            } else {
+                errors.put(index, error);
+                generator.writeNull();
+            }
+            index++;
+        }
+
+        private void close() {
+            try {
+                generator.close();
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
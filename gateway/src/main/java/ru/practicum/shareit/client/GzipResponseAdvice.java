@@ -0,0 +1,128 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the passed server responses for clients that accept gzip, the server itself always answers uncompressed.
+ * Tomcat compression skips responses with a strong ETag, because the compressed body is another representation.
+ * So this advice gives the compressed body its own strong ETag, the server one with {@link #ETAG_SUFFIX},
+ * and {@link BaseClient} removes the suffix from If-None-Match before asking the server.
+ */
+@ControllerAdvice
+public class GzipResponseAdvice implements ResponseBodyAdvice<Object> {
+    public static final String ETAG_SUFFIX = "-gzip";
+
+    private final boolean enabled;
+    private final long minResponseSize;
+
+    public GzipResponseAdvice(@Value("${shareit.compression.enabled:true}") boolean enabled,
+                              @Value("${shareit.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        this.enabled = enabled;
+        this.minResponseSize = minResponseSize.toBytes();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled && ByteArrayHttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof byte[]) || ((byte[]) body).length < minResponseSize) {
+            return body;
+        }
+        HttpHeaders headers = response.getHeaders();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !MediaType.APPLICATION_JSON.isCompatibleWith(headers.getContentType())) {
+            return body;
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request.getHeaders())) {
+            return body;
+        }
+        String etag = headers.getETag();
+        if (etag != null && etag.endsWith("\"") && !etag.startsWith("W/")) {
+            setEtag(response, etag.substring(0, etag.length() - 1) + ETAG_SUFFIX + "\"");
+        }
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return gzip((byte[]) body);
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip, codings with {@code q=0} or a malformed weight are refused.
+     */
+    static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (!name.equals("gzip") && !name.equals("*")) {
+                    continue;
+                }
+                boolean refused = false;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        refused = refused(parameter.substring(2));
+                    }
+                }
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A malformed weight is taken as a refusal, the body is then sent as it is.
+     */
+    private static boolean refused(String weight) {
+        try {
+            return Double.parseDouble(weight) == 0;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * The conditional request check of Spring MVC moves the ETag from the response headers to the servlet response.
+     */
+    private static void setEtag(ServerHttpResponse response, String etag) {
+        if (response instanceof ServletServerHttpResponse) {
+            response.getHeaders().remove(HttpHeaders.ETAG);
+            ((ServletServerHttpResponse) response).getServletResponse().setHeader(HttpHeaders.ETAG, etag);
+        } else {
+            response.getHeaders().setETag(etag);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
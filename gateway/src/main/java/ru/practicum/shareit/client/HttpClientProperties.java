@@ -0,0 +1,48 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool and timeouts of the HTTP client shared by the clients of the server.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http-client")
+public class HttpClientProperties {
+    /**
+     * Connections to a route that has no own limit in {@link #routes}.
+     */
+    private int maxPerRoute = 100;
+    /**
+     * Connection limits of single routes by their url, for example {@code http://localhost:9090}.
+     */
+    private Map<String, Integer> routes = new HashMap<>();
+    /**
+     * Requests waiting for a free connection of a route, more are rejected at once.
+     */
+    private int pendingAcquireMaxCount = 1000;
+    /**
+     * Wait for a free connection of the pool.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /**
+     * Connections idle for longer are closed.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(60);
+    /**
+     * Connections older than that are closed once they are released, even when kept alive by the server.
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(10);
+    /**
+     * Period of the background check for idle and expired connections.
+     */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+}
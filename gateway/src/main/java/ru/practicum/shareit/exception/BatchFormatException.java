@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class BatchFormatException extends RuntimeException {
+    public BatchFormatException(String message) {
+        super(message);
+    }
+}
@@ -21,7 +21,7 @@ public class ErrorHandler {
         return new ErrorResponse(error);
     }
 
-    @ExceptionHandler({BookingStateException.class, ConstraintViolationException.class})
+    @ExceptionHandler({BookingStateException.class, BatchFormatException.class, ConstraintViolationException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBadRequest(RuntimeException e) {
         log.error(e.getMessage(), e);
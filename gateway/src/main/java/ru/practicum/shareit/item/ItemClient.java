@@ -3,15 +3,17 @@ package ru.practicum.shareit.item;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BatchRows;
 import ru.practicum.shareit.item.model.CommentDto;
 import ru.practicum.shareit.item.model.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
 
 @Service
@@ -20,21 +22,20 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder) {
         super(
                 builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .baseUrl(serverUrl + API_PREFIX)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> getById(int userId, int itemId) {
+    public Mono<ResponseEntity<byte[]>> getById(int userId, int itemId) {
         log.info("getById itemId: {} userId: {}", itemId, userId);
         return get("/" + itemId, userId, null);
     }
 
-    public ResponseEntity<Object> getItemsByUserId(int userId, int from, int size) {
+    public Mono<ResponseEntity<byte[]>> getItemsByUserId(int userId, int from, int size) {
         log.info("getItemsByUserId userId: {}", userId);
         Map<String, Object> parameters = Map.of(
                 "from", from,
@@ -43,22 +44,32 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addItem(int userId, ItemDto itemDto) {
+    public void exportItems(int userId, HttpServletResponse response) throws IOException {
+        log.info("exportItems userId: {}", userId);
+        stream("/export", userId, response);
+    }
+
+    public Mono<ResponseEntity<byte[]>> addItem(int userId, ItemDto itemDto) {
         log.info("addItem item: {} userId: {}", itemDto, userId);
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(int userId, int itemId, ItemDto itemDto) {
+    public void addItems(int userId, BatchRows items, HttpServletResponse response) throws IOException {
+        log.info("addItems userId: {}", userId);
+        postBatch("/batch", userId, items, response);
+    }
+
+    public Mono<ResponseEntity<byte[]>> updateItem(int userId, int itemId, ItemDto itemDto) {
         log.info("updateItem itemId: {} userId: {}", itemId, userId);
         return patch("/" + itemId, userId, null, itemDto);
     }
 
-    public ResponseEntity<Object> deleteItem(int userId, int itemId) {
+    public Mono<ResponseEntity<byte[]>> deleteItem(int userId, int itemId) {
         log.info("deleteItem itemId: {} userId: {}", itemId, userId);
         return delete("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> findItems(int userId, String text, int from, int size) {
+    public Mono<ResponseEntity<byte[]>> findItems(int userId, String text, int from, int size) {
         log.info("findItems userId: {} text: {}", userId, text);
         Map<String, Object> parameters = Map.of(
                 "text", text,
@@ -68,7 +79,7 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(int userId, int itemId, CommentDto commentDto) {
+    public Mono<ResponseEntity<byte[]>> addComment(int userId, int itemId, CommentDto commentDto) {
         log.info("addComment comment: {} itemId: {} userId: {}", commentDto, itemId, userId);
         return post("/" + itemId + "/comment", userId, commentDto);
     }
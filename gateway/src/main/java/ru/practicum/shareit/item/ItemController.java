@@ -4,12 +4,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BatchRows;
+import ru.practicum.shareit.client.BatchValidator;
 import ru.practicum.shareit.item.model.CommentDto;
 import ru.practicum.shareit.item.model.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/items")
@@ -17,14 +23,15 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
     private final ItemClient itemClient;
+    private final BatchValidator batchValidator;
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int itemId) {
+    public Mono<ResponseEntity<byte[]>> getItemById(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int itemId) {
         return itemClient.getById(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByUserId(
+    public Mono<ResponseEntity<byte[]>> getItemsByUserId(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(defaultValue = "10") @Positive int size
@@ -32,24 +39,43 @@ public class ItemController {
         return itemClient.getItemsByUserId(userId, from, size);
     }
 
+    /**
+     * Passes the newline delimited JSON of all the user's items through while the server writes it. The copy runs on
+     * the request thread, so the async request timeout does not cut a long export.
+     */
+    @GetMapping("/export")
+    public void exportItems(@RequestHeader("X-Sharer-User-Id") int userId, HttpServletResponse response) throws IOException {
+        itemClient.exportItems(userId, response);
+    }
+
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestHeader("X-Sharer-User-Id") int userId, @RequestBody @Valid ItemDto itemDto) {
+    public Mono<ResponseEntity<byte[]>> addItem(@RequestHeader("X-Sharer-User-Id") int userId, @RequestBody @Valid ItemDto itemDto) {
         return itemClient.addItem(userId, itemDto);
     }
 
+    /**
+     * Passes the validated rows to the server while they are read, on the request thread like the exports.
+     */
+    @PostMapping("/batch")
+    public void addItems(@RequestHeader("X-Sharer-User-Id") int userId, InputStream body,
+                         HttpServletResponse response) throws IOException {
+        BatchRows rows = batchValidator.validate(body, ItemDto.class);
+        itemClient.addItems(userId, rows, response);
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") int userId,
+    public Mono<ResponseEntity<byte[]>> updateItem(@RequestHeader("X-Sharer-User-Id") int userId,
                                              @PathVariable int itemId, @RequestBody ItemDto itemDto) {
         return itemClient.updateItem(userId, itemId, itemDto);
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> deleteItem(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int itemId) {
+    public Mono<ResponseEntity<byte[]>> deleteItem(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable int itemId) {
         return itemClient.deleteItem(userId, itemId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> findItems(
+    public Mono<ResponseEntity<byte[]>> findItems(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam String text,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
@@ -59,7 +85,7 @@ public class ItemController {
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@RequestHeader("X-Sharer-User-Id") int userId,
+    public Mono<ResponseEntity<byte[]>> addComment(@RequestHeader("X-Sharer-User-Id") int userId,
                                              @PathVariable int itemId,
                                              @RequestBody @Valid CommentDto commentDto) {
         return itemClient.addComment(userId, itemId, commentDto);
@@ -3,11 +3,10 @@ package ru.practicum.shareit.request;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.model.ItemRequestDto;
 
@@ -19,26 +18,25 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder) {
         super(
                 builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .baseUrl(serverUrl + API_PREFIX)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> addItemRequest(int userId, ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<byte[]>> addItemRequest(int userId, ItemRequestDto itemRequestDto) {
         log.info("addItemRequest itemRequest: {} userId: {}", itemRequestDto, userId);
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getItemRequestsByUserId(int userId) {
+    public Mono<ResponseEntity<byte[]>> getItemRequestsByUserId(int userId) {
         log.info("getItemRequestsByUserId userId: {}", userId);
         return get("", userId, null);
     }
 
-    public ResponseEntity<Object> getAllItemRequests(int userId, int from, int size) {
+    public Mono<ResponseEntity<byte[]>> getAllItemRequests(int userId, int from, int size) {
         log.info("getAllItemRequests userId: {}", userId);
         Map<String, Object> parameters = Map.of(
                 "from", from,
@@ -47,7 +45,7 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getById(int userId, int requestId) {
+    public Mono<ResponseEntity<byte[]>> getById(int userId, int requestId) {
         log.info("getById requestId: {} userId: {}", requestId, userId);
         return get("/" + requestId, userId, null);
     }
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.model.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -18,7 +19,7 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItemRequest(
+    public Mono<ResponseEntity<byte[]>> addItemRequest(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @Valid @RequestBody ItemRequestDto itemRequestDto
     ) {
@@ -26,12 +27,12 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemRequestsByUserId(@RequestHeader("X-Sharer-User-Id") int userId) {
+    public Mono<ResponseEntity<byte[]>> getItemRequestsByUserId(@RequestHeader("X-Sharer-User-Id") int userId) {
         return itemRequestClient.getItemRequestsByUserId(userId);
     }
 
     @GetMapping(path = "/all")
-    public ResponseEntity<Object> getAllItemRequests(
+    public Mono<ResponseEntity<byte[]>> getAllItemRequests(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(defaultValue = "10") @Positive int size
@@ -40,7 +41,7 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getItemRequestById(
+    public Mono<ResponseEntity<byte[]>> getItemRequestById(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @PathVariable int requestId
     ) {
@@ -3,50 +3,57 @@ package ru.practicum.shareit.user;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.BatchRows;
 import ru.practicum.shareit.user.model.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 @Service
 @Slf4j
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, WebClient.Builder builder) {
         super(
                 builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .baseUrl(serverUrl + API_PREFIX)
                         .build()
         );
     }
 
-    public ResponseEntity<Object> getById(int userId) {
+    public Mono<ResponseEntity<byte[]>> getById(int userId) {
         log.info("getById userId: {}", userId);
         return get("/" + userId, null, null);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<byte[]>> getUsers() {
         log.info("getUsers");
         return get("", null, null);
     }
 
-    public ResponseEntity<Object> addUser(UserDto userDto) {
+    public Mono<ResponseEntity<byte[]>> addUser(UserDto userDto) {
         log.info("addUser user: {}", userDto);
         return post("", null, userDto);
     }
 
-    public ResponseEntity<Object> updateUser(int userId, UserDto userDto) {
+    public void addUsers(BatchRows users, HttpServletResponse response) throws IOException {
+        log.info("addUsers");
+        postBatch("/batch", null, users, response);
+    }
+
+    public Mono<ResponseEntity<byte[]>> updateUser(int userId, UserDto userDto) {
         log.info("updateUser userId: {}", userId);
         return patch("/" + userId, null, null, userDto);
     }
 
-    public ResponseEntity<Object> deleteUser(int userId) {
+    public Mono<ResponseEntity<byte[]>> deleteUser(int userId) {
         log.info("deleteUser userId: {}", userId);
         return delete("/" + userId, null);
     }
@@ -10,38 +10,54 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BatchRows;
+import ru.practicum.shareit.client.BatchValidator;
 import ru.practicum.shareit.user.model.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserClient userClient;
+    private final BatchValidator batchValidator;
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable int userId) {
+    public Mono<ResponseEntity<byte[]>> getUserById(@PathVariable int userId) {
         return userClient.getById(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
+    public Mono<ResponseEntity<byte[]>> getUsers() {
         return userClient.getUsers();
     }
 
     @PostMapping
-    public ResponseEntity<Object> addUser(@Valid @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<byte[]>> addUser(@Valid @RequestBody UserDto userDto) {
         return userClient.addUser(userDto);
     }
 
+    /**
+     * Passes the validated rows to the server while they are read, on the request thread.
+     */
+    @PostMapping("/batch")
+    public void addUsers(InputStream body, HttpServletResponse response) throws IOException {
+        BatchRows rows = batchValidator.validate(body, UserDto.class);
+        userClient.addUsers(rows, response);
+    }
+
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@PathVariable int userId, @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<byte[]>> updateUser(@PathVariable int userId, @RequestBody UserDto userDto) {
         return userClient.updateUser(userId, userDto);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable int userId) {
+    public Mono<ResponseEntity<byte[]>> deleteUser(@PathVariable int userId) {
         return userClient.deleteUser(userId);
     }
 }
\ No newline at end of file
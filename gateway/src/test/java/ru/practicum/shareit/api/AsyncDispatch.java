@@ -0,0 +1,26 @@
+package ru.practicum.shareit.api;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+/**
+ * Performs a request and, when the controller returned a {@code Mono}, the dispatch of its result.
+ * Requests rejected by the validation never start the async processing.
+ */
+final class AsyncDispatch {
+    private AsyncDispatch() {
+    }
+
+    static ResultActions perform(MockMvc mvc, RequestBuilder request) throws Exception {
+        ResultActions actions = mvc.perform(request);
+        MvcResult result = actions.andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            return mvc.perform(asyncDispatch(result));
+        }
+        return actions;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.BookingClient;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
@@ -20,7 +21,10 @@ import java.time.LocalDateTime;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.api.AsyncDispatch.perform;
 
 @WebMvcTest(controllers = BookingController.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -39,7 +43,7 @@ public class BookingControllerTest {
             null
     );
 
-    private final ResponseEntity<Object> response = new ResponseEntity<>(HttpStatus.OK);
+    private final Mono<ResponseEntity<byte[]>> response = Mono.just(new ResponseEntity<>(HttpStatus.OK));
 
     @Test
     public void shouldAddBooking() throws Exception {
@@ -47,7 +51,7 @@ public class BookingControllerTest {
                 .when(bookingClient.addBooking(anyInt(), any(BookingDtoDefault.class)))
                 .thenReturn(response);
 
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(bookingDtoDefault))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -58,7 +62,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldNotAddBookingWhenStartNull() throws Exception {
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(
                                 new BookingDtoDefault(
                                         1,
@@ -77,7 +81,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldNotAddBookingWhenStartBeforeNow() throws Exception {
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(
                                 new BookingDtoDefault(
                                         1,
@@ -96,7 +100,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldNotAddBookingWhenEndNull() throws Exception {
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(
                                 new BookingDtoDefault(
                                         1,
@@ -115,7 +119,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldNotAddBookingWhenEndBeforeNow() throws Exception {
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(
                                 new BookingDtoDefault(
                                         1,
@@ -134,7 +138,7 @@ public class BookingControllerTest {
 
     @Test
     public void shouldNotAddBookingWhenItemIdNull() throws Exception {
-        mvc.perform(post("/bookings")
+        perform(mvc, post("/bookings")
                         .content(mapper.writeValueAsString(
                                 new BookingDtoDefault(
                                         1,
@@ -157,7 +161,7 @@ public class BookingControllerTest {
                 .when(bookingClient.approveBooking(anyInt(), anyInt(), anyBoolean()))
                 .thenReturn(response);
 
-        mvc.perform(patch("/bookings/1")
+        perform(mvc, patch("/bookings/1")
                         .header("X-Sharer-User-Id", 1)
                         .param("approved", String.valueOf(true))
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -171,7 +175,7 @@ public class BookingControllerTest {
                 .when(bookingClient.getById(anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/bookings/1")
+        perform(mvc, get("/bookings/1")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -181,23 +185,43 @@ public class BookingControllerTest {
     @Test
     public void shouldGetUserBookings() throws Exception {
         Mockito
-                .when(bookingClient.getUserBookings(anyInt(), anyString(), anyInt(), anyInt()))
+                .when(bookingClient.getUserBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(response);
 
-        mvc.perform(get("/bookings")
+        perform(mvc, get("/bookings")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldPassServerBodyAndCursorThrough() throws Exception {
+        String body = "[{\"id\":1,\"status\":\"WAITING\"}]";
+        Mockito
+                .when(bookingClient.getUserBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Next-Cursor", "next")
+                        .body(body.getBytes(StandardCharsets.UTF_8))));
+
+        perform(mvc, get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(body))
+                .andExpect(header().string("X-Next-Cursor", "next"));
+    }
+
     @Test
     public void shouldGetOwnerBookings() throws Exception {
         Mockito
-                .when(bookingClient.getOwnerBookings(anyInt(), anyString(), anyInt(), anyInt()))
+                .when(bookingClient.getOwnerBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(response);
 
-        mvc.perform(get("/bookings/owner")
+        perform(mvc, get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
@@ -7,25 +8,47 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BatchRows;
+import ru.practicum.shareit.client.BatchValidator;
 import ru.practicum.shareit.item.ItemClient;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.model.CommentDto;
 import ru.practicum.shareit.item.model.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.api.AsyncDispatch.perform;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(BatchValidator.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class ItemControllerTest {
     @MockBean
@@ -44,7 +67,7 @@ public class ItemControllerTest {
             Collections.emptyList()
     );
 
-    private final ResponseEntity<Object> response = new ResponseEntity<>(HttpStatus.OK);
+    private final Mono<ResponseEntity<byte[]>> response = Mono.just(new ResponseEntity<>(HttpStatus.OK));
 
     @Test
     public void shouldGetItemById() throws Exception {
@@ -52,20 +75,82 @@ public class ItemControllerTest {
                 .when(itemClient.getById(anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/items/1")
+        perform(mvc, get("/items/1")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldCompressLargeResponseWithOwnEtag() throws Exception {
+        String body = largeItemList();
+        Mockito
+                .when(itemClient.getItemsByUserId(anyInt(), anyInt(), anyInt()))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag("\"0abc\"")
+                        .body(body.getBytes(StandardCharsets.UTF_8))));
+
+        MvcResult result = perform(mvc, get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc-gzip\""))
+                .andReturn();
+
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        assertThat(gunzip(compressed), equalTo(body));
+    }
+
+    @Test
+    public void shouldNotCompressForClientsRefusingGzip() throws Exception {
+        String body = largeItemList();
+        Mockito
+                .when(itemClient.getItemsByUserId(anyInt(), anyInt(), anyInt()))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag("\"0abc\"")
+                        .body(body.getBytes(StandardCharsets.UTF_8))));
+
+        perform(mvc, get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc\""))
+                .andExpect(content().string(body));
+    }
+
+    @Test
+    public void shouldNotCompressForMalformedWeight() throws Exception {
+        String body = largeItemList();
+        Mockito
+                .when(itemClient.getItemsByUserId(anyInt(), anyInt(), anyInt()))
+                .thenReturn(Mono.just(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body.getBytes(StandardCharsets.UTF_8))));
+
+        perform(mvc, get("/items")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=x")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(body));
+    }
+
     @Test
     public void shouldGetItemsByUserId() throws Exception {
         Mockito
                 .when(itemClient.getItemsByUserId(anyInt(), anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/items")
+        perform(mvc, get("/items")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -78,7 +163,7 @@ public class ItemControllerTest {
                 .when(itemClient.addItem(anyInt(), any(ItemDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(post("/items")
+        perform(mvc, post("/items")
                         .content(mapper.writeValueAsString(itemDto))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -87,9 +172,71 @@ public class ItemControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldAddValidItemsAndReportInvalidOnes() throws Exception {
+        byte[][] forwarded = new byte[1][];
+        Mockito
+                .doAnswer(invocation -> {
+                    BatchRows rows = invocation.getArgument(1);
+                    HttpServletResponse response = invocation.getArgument(2);
+                    forwarded[0] = join(rows);
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    rows.mergeErrors(new ByteArrayInputStream("{\"ids\":[5,null,6],\"errors\":[]}".getBytes(StandardCharsets.UTF_8)),
+                            response.getOutputStream());
+                    return null;
+                })
+                .when(itemClient).addItems(eq(1), any(BatchRows.class), any(HttpServletResponse.class));
+        ItemDto blankName = new ItemDto(null, " ", "description", true, null, null, null, null);
+
+        perform(mvc, post("/items/batch")
+                        .content(mapper.writeValueAsString(List.of(itemDto, blankName, itemDto)))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(5))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].error").value("name must not be blank"));
+
+        JsonNode rows = mapper.readTree(forwarded[0]);
+        assertThat(rows.size(), equalTo(3));
+        assertThat(rows.get(0).get("name").asText(), equalTo(itemDto.getName()));
+        assertThat(rows.get(1).isNull(), equalTo(true));
+    }
+
+    @Test
+    public void shouldNotAddItemsWhenRowIsMalformed() throws Exception {
+        Mockito
+                .doAnswer(invocation -> join(invocation.getArgument(1)))
+                .when(itemClient).addItems(eq(1), any(BatchRows.class), any(HttpServletResponse.class));
+
+        perform(mvc, post("/items/batch")
+                        .content("[" + mapper.writeValueAsString(itemDto) + ", {\"name\": ]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(startsWith("Malformed JSON")));
+    }
+
+    @Test
+    public void shouldNotAddItemsWhenBodyIsNotArray() throws Exception {
+        perform(mvc, post("/items/batch")
+                        .content(mapper.writeValueAsString(itemDto))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Expected a JSON array"));
+        Mockito.verifyNoInteractions(itemClient);
+    }
+
     @Test
     public void shouldNotAddItemWhenBlankName() throws Exception {
-        mvc.perform(post("/items")
+        perform(mvc, post("/items")
                         .content(mapper.writeValueAsString(
                                 new ItemDto(
                                         1,
@@ -111,7 +258,7 @@ public class ItemControllerTest {
 
     @Test
     public void shouldNotAddItemWhenBlankDescription() throws Exception {
-        mvc.perform(post("/items")
+        perform(mvc, post("/items")
                         .content(mapper.writeValueAsString(
                                 new ItemDto(
                                         1,
@@ -133,7 +280,7 @@ public class ItemControllerTest {
 
     @Test
     public void shouldNotAddItemWhenIsAvailableNull() throws Exception {
-        mvc.perform(post("/items")
+        perform(mvc, post("/items")
                         .content(mapper.writeValueAsString(
                                 new ItemDto(
                                         1,
@@ -159,7 +306,7 @@ public class ItemControllerTest {
                 .when(itemClient.updateItem(anyInt(), anyInt(), any(ItemDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(patch("/items/1")
+        perform(mvc, patch("/items/1")
                         .content(mapper.writeValueAsString(itemDto))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -173,7 +320,7 @@ public class ItemControllerTest {
         Mockito
                 .when(itemClient.deleteItem(anyInt(), anyInt()))
                 .thenReturn(response);
-        mvc.perform(delete("/items/1")
+        perform(mvc, delete("/items/1")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -186,7 +333,7 @@ public class ItemControllerTest {
                 .when(itemClient.findItems(anyInt(), anyString(), anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/items/search")
+        perform(mvc, get("/items/search")
                         .header("X-Sharer-User-Id", 1)
                         .param("text", "item")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -206,7 +353,7 @@ public class ItemControllerTest {
                 .when(itemClient.addComment(anyInt(), anyInt(), any(CommentDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(post("/items/1/comment")
+        perform(mvc, post("/items/1/comment")
                         .content(mapper.writeValueAsString(commentDto))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -224,7 +371,7 @@ public class ItemControllerTest {
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)
         );
 
-        mvc.perform(post("/items/1/comment")
+        perform(mvc, post("/items/1/comment")
                         .content(mapper.writeValueAsString(commentDto))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -232,4 +379,46 @@ public class ItemControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    private String largeItemList() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            body.append(i == 0 ? "" : ",").append(mapper.writeValueAsString(itemDto));
+        }
+        return body.append("]").toString();
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void shouldExportItemsOnRequestThread() throws Exception {
+        Mockito
+                .doAnswer(invocation -> {
+                    HttpServletResponse response = invocation.getArgument(1);
+                    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                    response.getOutputStream().write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                    return null;
+                })
+                .when(itemClient).exportItems(eq(1), any(HttpServletResponse.class));
+
+        MvcResult result = mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"))
+                .andReturn();
+
+        assertThat(result.getRequest().isAsyncStarted(), equalTo(false));
+    }
+
+    private static byte[] join(BatchRows rows) {
+        DataBuffer joined = DataBufferUtils.join(rows.getBody()).block();
+        byte[] bytes = new byte[joined.readableByteCount()];
+        joined.read(bytes);
+        return bytes;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.ItemRequestClient;
 import ru.practicum.shareit.request.ItemRequestController;
 import ru.practicum.shareit.request.model.ItemRequestDto;
@@ -25,6 +26,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.api.AsyncDispatch.perform;
 
 @WebMvcTest(controllers = ItemRequestController.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -41,7 +43,7 @@ public class ItemRequestControllerTest {
             Collections.emptyList()
     );
 
-    private final ResponseEntity<Object> response = new ResponseEntity<>(HttpStatus.OK);
+    private final Mono<ResponseEntity<byte[]>> response = Mono.just(new ResponseEntity<>(HttpStatus.OK));
 
     @Test
     public void shouldAddItemRequest() throws Exception {
@@ -49,7 +51,7 @@ public class ItemRequestControllerTest {
                 .when(itemRequestClient.addItemRequest(anyInt(), any(ItemRequestDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(post("/requests")
+        perform(mvc, post("/requests")
                         .content(mapper.writeValueAsString(itemRequestDto))
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -60,7 +62,7 @@ public class ItemRequestControllerTest {
 
     @Test
     public void shouldNotAddItemRequestWhenBlankDescription() throws Exception {
-        mvc.perform(post("/requests")
+        perform(mvc, post("/requests")
                         .content(mapper.writeValueAsString(
                                 new ItemRequestDto(
                                         1,
@@ -82,7 +84,7 @@ public class ItemRequestControllerTest {
                 .when(itemRequestClient.getItemRequestsByUserId(anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/requests")
+        perform(mvc, get("/requests")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -95,7 +97,7 @@ public class ItemRequestControllerTest {
                 .when(itemRequestClient.getAllItemRequests(anyInt(), anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/requests/all")
+        perform(mvc, get("/requests/all")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
@@ -108,7 +110,7 @@ public class ItemRequestControllerTest {
                 .when(itemRequestClient.getById(anyInt(), anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/requests/1")
+        perform(mvc, get("/requests/1")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
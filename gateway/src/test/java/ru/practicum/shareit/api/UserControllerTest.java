@@ -7,22 +7,33 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.BatchRows;
+import ru.practicum.shareit.client.BatchValidator;
 import ru.practicum.shareit.user.UserClient;
 import ru.practicum.shareit.user.UserController;
 import ru.practicum.shareit.user.model.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.api.AsyncDispatch.perform;
 
 @WebMvcTest(UserController.class)
+@Import(BatchValidator.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserControllerTest {
     @MockBean
@@ -32,7 +43,7 @@ public class UserControllerTest {
 
     private final UserDto userDto = new UserDto(1, "user1", "user1@email.com");
 
-    private final ResponseEntity<Object> response = new ResponseEntity<>(HttpStatus.OK);
+    private final Mono<ResponseEntity<byte[]>> response = Mono.just(new ResponseEntity<>(HttpStatus.OK));
 
     @Test
     public void shouldGetUserById() throws Exception {
@@ -40,7 +51,7 @@ public class UserControllerTest {
                 .when(userClient.getById(anyInt()))
                 .thenReturn(response);
 
-        mvc.perform(get("/users/1")
+        perform(mvc, get("/users/1")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
@@ -52,7 +63,7 @@ public class UserControllerTest {
                 .when(userClient.getUsers())
                 .thenReturn(response);
 
-        mvc.perform(get("/users")
+        perform(mvc, get("/users")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
@@ -64,7 +75,7 @@ public class UserControllerTest {
                 .when(userClient.addUser(any(UserDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(post("/users")
+        perform(mvc, post("/users")
                         .content(mapper.writeValueAsString(userDto))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -72,9 +83,37 @@ public class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldMergeErrorsOfGatewayAndServer() throws Exception {
+        Mockito
+                .doAnswer(invocation -> {
+                    BatchRows rows = invocation.getArgument(0);
+                    HttpServletResponse response = invocation.getArgument(1);
+                    DataBufferUtils.join(rows.getBody()).block();
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    rows.mergeErrors(new ByteArrayInputStream(("{\"ids\":[null,2,null],\"errors\":[" +
+                                    "{\"index\":2,\"error\":\"The userEmail already exists\"}]}")
+                                    .getBytes(StandardCharsets.UTF_8)),
+                            response.getOutputStream());
+                    return null;
+                })
+                .when(userClient).addUsers(any(BatchRows.class), any(HttpServletResponse.class));
+
+        perform(mvc, post("/users/batch")
+                        .content(mapper.writeValueAsString(List.of(new UserDto(null, "user1", "email.com"), userDto, userDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[1]").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(0))
+                .andExpect(jsonPath("$.errors[0].error").value("email must be a well-formed email address"))
+                .andExpect(jsonPath("$.errors[1].index").value(2));
+    }
+
     @Test
     public void shouldNotAddUserWhenBlankName() throws Exception {
-        mvc.perform(post("/users")
+        perform(mvc, post("/users")
                         .content(mapper.writeValueAsString(new UserDto(1, "", "user1@email.com")))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -84,7 +123,7 @@ public class UserControllerTest {
 
     @Test
     public void shouldNotAddUserWhenBlankEmail() throws Exception {
-        mvc.perform(post("/users")
+        perform(mvc, post("/users")
                         .content(mapper.writeValueAsString(new UserDto(1, "user1", "")))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -94,7 +133,7 @@ public class UserControllerTest {
 
     @Test
     public void shouldNotAddUserWhenIncorrectEmail() throws Exception {
-        mvc.perform(post("/users")
+        perform(mvc, post("/users")
                         .content(mapper.writeValueAsString(new UserDto(1, "user1", "email.com")))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -108,7 +147,7 @@ public class UserControllerTest {
                 .when(userClient.updateUser(anyInt(), any(UserDto.class)))
                 .thenReturn(response);
 
-        mvc.perform(patch("/users/1")
+        perform(mvc, patch("/users/1")
                         .content(mapper.writeValueAsString(userDto))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -118,7 +157,7 @@ public class UserControllerTest {
 
     @Test
     public void shouldDeleteUser() throws Exception {
-        mvc.perform(delete("/users/1")
+        perform(mvc, delete("/users/1")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
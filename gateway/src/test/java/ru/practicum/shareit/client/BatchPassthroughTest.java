@@ -0,0 +1,136 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.exception.BatchFormatException;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.model.UserDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class BatchPassthroughTest {
+    private static final int ROWS = 2000;
+    private static final AtomicReference<byte[]> received = new AtomicReference<>();
+    private static final HttpServer server = startServer();
+
+    @Autowired
+    private UserClient userClient;
+    @Autowired
+    private BatchValidator batchValidator;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldSendRowsInChunksAndMergeErrorsInOrder() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        userClient.addUsers(batchValidator.validate(users(ROWS, ""), UserDto.class), response);
+
+        JsonNode sent = mapper.readTree(received.get());
+        assertThat(sent.size(), equalTo(ROWS));
+        assertThat(sent.get(0).isNull(), equalTo(true));
+        assertThat(sent.get(1).get("email").asText(), equalTo("user1@email.com"));
+        assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+        JsonNode result = mapper.readTree(response.getContentAsByteArray());
+        assertThat(result.get("ids").size(), equalTo(ROWS));
+        List<Integer> indexes = new ArrayList<>();
+        result.get("errors").forEach(error -> indexes.add(error.get("index").asInt()));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < ROWS; i += 100) {
+            expected.add(i);
+            if (i == 0) {
+                expected.add(1);
+            }
+        }
+        assertThat(indexes, equalTo(expected));
+        assertThat(result.get("errors").get(1).get("error").asText(), equalTo("taken"));
+    }
+
+    @Test
+    public void shouldFailWithFormatErrorFoundWhileSending() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assertions.assertThrows(BatchFormatException.class,
+                () -> userClient.addUsers(batchValidator.validate(users(ROWS, ", {\"name\": "), UserDto.class), response));
+    }
+
+    /**
+     * Users with every hundredth email malformed, followed by the given text before the end of the array.
+     */
+    private static InputStream users(int count, String tail) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            String email = i % 100 == 0 ? "user" + i : "user" + i + "@email.com";
+            body.append("{\"name\":\"user").append(i).append("\",\"email\":\"").append(email).append("\"}");
+        }
+        body.append(tail).append(']');
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/users/batch", exchange -> {
+                byte[] rows;
+                try (InputStream in = exchange.getRequestBody()) {
+                    rows = in.readAllBytes();
+                } catch (IOException e) {
+                    exchange.close();
+                    return;
+                }
+                received.set(rows);
+                StringBuilder ids = new StringBuilder();
+                for (int i = 0; i < ROWS; i++) {
+                    ids.append(i > 0 ? "," : "").append(i % 100 == 0 ? "null" : String.valueOf(i));
+                }
+                byte[] body = ("{\"ids\":[" + ids + "],\"errors\":[{\"index\":1,\"error\":\"taken\"}]}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            httpServer.start();
+            return httpServer;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
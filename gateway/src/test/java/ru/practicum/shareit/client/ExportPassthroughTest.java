@@ -0,0 +1,114 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class ExportPassthroughTest {
+    private static final String FIRST_LINE = "{\"id\":1}\n";
+    private static final String SECOND_LINE = "{\"id\":2}\n";
+    private static final CountDownLatch secondLine = new CountDownLatch(1);
+    private static final HttpServer server = startServer();
+
+    @Autowired
+    private ItemClient itemClient;
+    @Autowired
+    private BookingClient bookingClient;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldWriteLinesBeforeServerResponseEnds() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        CompletableFuture<Void> export = CompletableFuture.runAsync(() -> {
+            try {
+                itemClient.exportItems(1, response);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (response.getContentAsString().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String beforeEnd = response.getContentAsString();
+        secondLine.countDown();
+        export.get(5, TimeUnit.SECONDS);
+
+        assertThat(beforeEnd, equalTo(FIRST_LINE));
+        assertThat(response.getStatus(), equalTo(HttpStatus.OK.value()));
+        assertThat(response.getContentType(), equalTo(MediaType.APPLICATION_NDJSON_VALUE));
+        assertThat(response.getContentAsString(), equalTo(FIRST_LINE + SECOND_LINE));
+    }
+
+    @Test
+    public void shouldPassServerErrorsThrough() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        bookingClient.exportOwnerBookings(404, response);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
+        assertThat(response.getContentType(), equalTo(MediaType.APPLICATION_JSON_VALUE));
+        assertThat(response.getContentAsString(), equalTo("{\"error\":\"Not found\"}"));
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/items/export", exchange -> {
+                exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_NDJSON_VALUE);
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(FIRST_LINE.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    secondLine.await(5, TimeUnit.SECONDS);
+                    out.write(SECOND_LINE.getBytes(StandardCharsets.UTF_8));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            httpServer.createContext("/bookings/owner/export", exchange -> {
+                byte[] body = "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+                exchange.sendResponseHeaders(404, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            httpServer.start();
+            return httpServer;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
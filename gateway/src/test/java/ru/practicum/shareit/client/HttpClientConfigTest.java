@@ -0,0 +1,143 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+@SpringBootTest(properties = "shareit-server.http-client.max-per-route=20")
+public class HttpClientConfigTest {
+    private static final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private static final HttpServer server = startServer();
+
+    @Autowired
+    private ConnectionProvider connectionProvider;
+    @Autowired
+    private UserClient userClient;
+    @Autowired
+    private ItemClient itemClient;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", HttpClientConfigTest::serverUrl);
+        registry.add("shareit-server.http-client.routes[" + serverUrl() + "]", () -> 5);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldConfigurePoolFromProperties() {
+        assertThat(connectionProvider.maxConnections(), equalTo(20));
+        assertThat(connectionProvider.maxConnectionsPerHost()
+                .get(InetSocketAddress.createUnresolved("localhost", server.getAddress().getPort())), equalTo(5));
+    }
+
+    @Test
+    public void shouldReuseKeptAliveConnectionsForAllClients() {
+        clientPorts.clear();
+
+        for (int i = 0; i < 5; i++) {
+            userClient.getUsers().block();
+            itemClient.getById(1, 1).block();
+        }
+
+        assertThat(clientPorts.size(), lessThan(3));
+    }
+
+    @Test
+    public void shouldPassServerErrorsThrough() {
+        ResponseEntity<byte[]> response = userClient.getById(404).block();
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), equalTo("{\"error\":\"Not found\"}"));
+        assertThat(response.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void shouldPassBodyBytesAndWhitelistedHeaders() {
+        ResponseEntity<byte[]> response = userClient.getUsers().block();
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8), equalTo("[ ]"));
+        assertThat(response.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_JSON));
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor"), equalTo("next"));
+        assertThat(response.getHeaders().getFirst("X-Internal"), nullValue());
+        assertThat(response.getHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING), nullValue());
+    }
+
+    @Test
+    public void shouldForwardServerEtagOfCompressedBody() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v1" + GzipResponseAdvice.ETAG_SUFFIX + "\"");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        ResponseEntity<byte[]> response;
+        try {
+            response = userClient.getUsers().block();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+        assertThat(response.getHeaders().getETag(), equalTo("\"v1" + GzipResponseAdvice.ETAG_SUFFIX + "\""));
+    }
+
+    private static String serverUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/", exchange -> {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                boolean notFound = exchange.getRequestURI().getPath().endsWith("/404");
+                byte[] body = (notFound ? "{\"error\":\"Not found\"}" : "[ ]").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("X-Next-Cursor", "next");
+                exchange.getResponseHeaders().add("X-Internal", "server");
+                exchange.sendResponseHeaders(notFound ? 404 : 200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            httpServer.start();
+            return httpServer;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
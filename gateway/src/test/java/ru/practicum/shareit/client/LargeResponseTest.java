@@ -0,0 +1,77 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.booking.BookingClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * A page larger than the default codec buffer of 256 KiB is passed through the buffered path in one piece.
+ */
+@SpringBootTest
+public class LargeResponseTest {
+    private static final byte[] PAGE = page(1024 * 1024);
+    private static final HttpServer server = startServer();
+
+    @Autowired
+    private BookingClient bookingClient;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldPassPageLargerThanDefaultBuffer() {
+        ResponseEntity<byte[]> response = bookingClient.getOwnerBookings(1, "ALL", 0, 5000, null).block();
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody().length, equalTo(PAGE.length));
+        assertThat(Arrays.equals(response.getBody(), PAGE), equalTo(true));
+    }
+
+    private static byte[] page(int size) {
+        byte[] page = new byte[size];
+        Arrays.fill(page, (byte) ' ');
+        page[0] = '[';
+        page[size - 1] = ']';
+        return page;
+    }
+
+    private static HttpServer startServer() {
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/bookings/owner", exchange -> {
+                exchange.getResponseHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
+                exchange.sendResponseHeaders(200, PAGE.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(PAGE);
+                }
+            });
+            httpServer.start();
+            return httpServer;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Users, requests and items created through the gateway before the load, the items are spread over random owners
+ * and every fifth one answers a request.
+ */
+public class Fixture {
+    static final List<String> WORDS = List.of(
+            "drill", "saw", "hammer", "ladder", "tent", "bike", "kayak", "camera", "tripod", "projector",
+            "speaker", "grill", "mixer", "vacuum", "mower", "trimmer", "jack", "wrench", "sander", "router",
+            "stroller", "scooter", "board", "skates", "helmet", "lantern", "stove", "heater", "fan", "drone");
+
+    private final int[] users;
+    private final int[] items;
+    private final int[] owners;
+
+    private Fixture(int[] users, int[] items, int[] owners) {
+        this.users = users;
+        this.items = items;
+        this.owners = owners;
+    }
+
+    public static Fixture seed(ShareItClient client, LoadTestConfig config, Random random)
+            throws IOException, InterruptedException {
+        int[] users = new int[config.getUsers()];
+        for (int i = 0; i < users.length; i++) {
+            ObjectNode user = client.object()
+                    .put("name", "user" + i)
+                    .put("email", "user" + i + "-" + System.nanoTime() + "@loadtest.com");
+            users[i] = client.create("/users", null, user);
+        }
+        int[] requests = new int[config.getRequests()];
+        for (int i = 0; i < requests.length; i++) {
+            ObjectNode request = client.object()
+                    .put("description", "Need a " + word(random) + " for the weekend");
+            requests[i] = client.create("/requests", users[random.nextInt(users.length)], request);
+        }
+        int[] items = new int[config.getItems()];
+        int[] owners = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            owners[i] = users[random.nextInt(users.length)];
+            ObjectNode item = client.object()
+                    .put("name", word(random) + " " + i)
+                    .put("description", "Good " + word(random) + ", comes with a " + word(random))
+                    .put("available", true);
+            if (requests.length > 0 && i % 5 == 0) {
+                item.put("requestId", requests[random.nextInt(requests.length)]);
+            }
+            items[i] = client.create("/items", owners[i], item);
+        }
+        return new Fixture(users, items, owners);
+    }
+
+    public static String word(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    public int randomUser(Random random) {
+        return users[random.nextInt(users.length)];
+    }
+
+    public int randomUserExcept(int userId, Random random) {
+        int index = random.nextInt(users.length);
+        if (users[index] == userId) {
+            index = (index + 1) % users.length;
+        }
+        return users[index];
+    }
+
+    public int randomItemIndex(Random random) {
+        return random.nextInt(items.length);
+    }
+
+    public int item(int index) {
+        return items[index];
+    }
+
+    public int owner(int index) {
+        return owners[index];
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of the successful responses in microseconds and counts of the failed ones, per operation.
+ */
+public class LatencyRecorder {
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    public LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_LATENCY, SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void record(Operation operation, long startNanos, int status) {
+        if (status / 100 != 2) {
+            errors.get(operation).increment();
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        latencies.get(operation).recordValue(Math.min(micros, HIGHEST_LATENCY));
+    }
+
+    public void error(Operation operation) {
+        errors.get(operation).increment();
+    }
+
+    public Histogram latency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    public long errors(Operation operation) {
+        return errors.get(operation).sum();
+    }
+
+    public Histogram total() {
+        Histogram total = new Histogram(HIGHEST_LATENCY, SIGNIFICANT_DIGITS);
+        latencies.values().forEach(total::add);
+        return total;
+    }
+
+    public long totalErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
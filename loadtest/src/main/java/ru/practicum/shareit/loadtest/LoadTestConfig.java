@@ -0,0 +1,120 @@
+package ru.practicum.shareit.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Settings of a run, read from {@code loadtest.*} system properties.
+ */
+public class LoadTestConfig {
+    /**
+     * Gateway of an already running stack, when empty the server and the gateway are started from their jars.
+     */
+    private final String gatewayUrl;
+    /**
+     * JDK that runs the started server and gateway, the virtual-threads profile needs Java 21 or newer.
+     */
+    private final Path javaHome;
+    private final Path serverJar;
+    private final Path gatewayJar;
+    /**
+     * JDBC url of a PostgreSQL database for the started server, when empty the server runs on an in-memory H2.
+     */
+    private final String datasourceUrl;
+    private final String datasourceUsername;
+    private final String datasourcePassword;
+    private final List<Integer> concurrency;
+    private final Duration warmup;
+    private final Duration stepDuration;
+    private final int users;
+    private final int items;
+    private final int requests;
+    private final Path output;
+
+    private LoadTestConfig(String defaultConcurrency) {
+        gatewayUrl = System.getProperty("loadtest.gateway-url", "");
+        javaHome = Path.of(System.getProperty("loadtest.java-home", System.getProperty("java.home")));
+        serverJar = Path.of(System.getProperty("loadtest.server-jar", "server/target/shareit-server-0.0.1-SNAPSHOT-exec.jar"));
+        gatewayJar = Path.of(System.getProperty("loadtest.gateway-jar", "gateway/target/shareit-gateway-0.0.1-SNAPSHOT.jar"));
+        datasourceUrl = System.getProperty("loadtest.datasource.url", "");
+        datasourceUsername = System.getProperty("loadtest.datasource.username", "shareit");
+        datasourcePassword = System.getProperty("loadtest.datasource.password", "shareit");
+        concurrency = Arrays.stream(System.getProperty("loadtest.concurrency", defaultConcurrency).split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT5S"));
+        stepDuration = Duration.parse(System.getProperty("loadtest.step-duration", "PT20S"));
+        users = Integer.getInteger("loadtest.users", 200);
+        items = Integer.getInteger("loadtest.items", 1000);
+        requests = Integer.getInteger("loadtest.requests", 200);
+        output = Path.of(System.getProperty("loadtest.output", "loadtest-results"));
+    }
+
+    public static LoadTestConfig fromSystemProperties() {
+        return fromSystemProperties("1,2,4,8,16,32,64");
+    }
+
+    public static LoadTestConfig fromSystemProperties(String defaultConcurrency) {
+        return new LoadTestConfig(defaultConcurrency);
+    }
+
+    public String getGatewayUrl() {
+        return gatewayUrl;
+    }
+
+    public Path getJavaHome() {
+        return javaHome;
+    }
+
+    public Path getServerJar() {
+        return serverJar;
+    }
+
+    public Path getGatewayJar() {
+        return gatewayJar;
+    }
+
+    public String getDatasourceUrl() {
+        return datasourceUrl;
+    }
+
+    public String getDatasourceUsername() {
+        return datasourceUsername;
+    }
+
+    public String getDatasourcePassword() {
+        return datasourcePassword;
+    }
+
+    public List<Integer> getConcurrency() {
+        return concurrency;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getStepDuration() {
+        return stepDuration;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the gateway with the {@link Operation} mix over rising concurrency. Every step runs closed-loop workers for
+ * the warmup and then for the measured duration, and writes the HdrHistogram percentiles of every operation to
+ * {@code c<concurrency>/<operation>.hgrm}. The throughput curve goes to {@code throughput.csv}, and the saturation
+ * point is the lowest concurrency reaching 95% of the best throughput.
+ */
+public class LoadTestRunner {
+    private static final double MICROS_IN_MILLI = 1000.0;
+    private static final double SATURATION = 0.95;
+
+    private final LoadTestConfig config;
+    private final Workload workload;
+    private final Path output;
+
+    private LoadTestRunner(LoadTestConfig config, Workload workload, Path output) {
+        this.config = config;
+        this.workload = workload;
+        this.output = output;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Files.createDirectories(config.getOutput());
+        if (!config.getGatewayUrl().isEmpty()) {
+            run(config, config.getGatewayUrl(), config.getOutput());
+            return;
+        }
+        try (ShareItStack stack = ShareItStack.start(config, config.getOutput(), List.of())) {
+            run(config, stack.getGatewayUrl(), config.getOutput());
+        }
+    }
+
+    /**
+     * Seeds the data and runs every concurrency step, returns the points of the throughput curve: concurrency,
+     * throughput, errors and p50, p99, p99.9 latencies in milliseconds.
+     */
+    static List<double[]> run(LoadTestConfig config, String gatewayUrl, Path output) throws IOException, InterruptedException {
+        ShareItClient client = new ShareItClient(gatewayUrl);
+        System.out.printf("Seeding %d users, %d requests, %d items through %s%n",
+                config.getUsers(), config.getRequests(), config.getItems(), gatewayUrl);
+        Fixture fixture = Fixture.seed(client, config, new Random(42));
+        LoadTestRunner runner = new LoadTestRunner(config, new Workload(client, fixture), output);
+        List<double[]> curve = new ArrayList<>();
+        for (int concurrency : config.getConcurrency()) {
+            LatencyRecorder recorder = runner.step(concurrency);
+            curve.add(runner.report(concurrency, recorder));
+        }
+        runner.writeCurve(curve);
+        return curve;
+    }
+
+    private LatencyRecorder step(int concurrency) throws InterruptedException {
+        System.out.printf("%nConcurrency %d: warmup %s, measurement %s%n", concurrency, config.getWarmup(), config.getStepDuration());
+        runWorkers(concurrency, config.getWarmup(), new LatencyRecorder());
+        LatencyRecorder recorder = new LatencyRecorder();
+        runWorkers(concurrency, config.getStepDuration(), recorder);
+        return recorder;
+    }
+
+    private void runWorkers(int concurrency, Duration duration, LatencyRecorder recorder) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                Random random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        workload.run(Operation.pick(random.nextInt(100)), random, recorder);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Prints the percentiles of the step, writes its histograms and returns its point of the throughput curve.
+     */
+    private double[] report(int concurrency, LatencyRecorder recorder) throws IOException {
+        Path directory = output.resolve("c" + concurrency);
+        Files.createDirectories(directory);
+        System.out.printf("%-22s %9s %7s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram latency = recorder.latency(operation);
+            print(operation.getLabel(), latency, recorder.errors(operation));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    directory.resolve(operation.name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+                latency.outputPercentileDistribution(out, MICROS_IN_MILLI);
+            }
+        }
+        Histogram total = recorder.total();
+        print("total", total, recorder.totalErrors());
+        double throughput = total.getTotalCount() / (config.getStepDuration().toMillis() / MICROS_IN_MILLI);
+        System.out.printf(Locale.ROOT, "Throughput %.1f req/s%n", throughput);
+        return new double[]{concurrency, throughput, recorder.totalErrors(),
+                millis(total, 50), millis(total, 99), millis(total, 99.9)};
+    }
+
+    private void writeCurve(List<double[]> curve) throws IOException {
+        double best = curve.stream().mapToDouble(point -> point[1]).max().orElse(0);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output.resolve("throughput.csv")))) {
+            out.println("concurrency,throughput,errors,p50_ms,p99_ms,p999_ms");
+            for (double[] point : curve) {
+                out.printf(Locale.ROOT, "%d,%.1f,%d,%.3f,%.3f,%.3f%n",
+                        (int) point[0], point[1], (long) point[2], point[3], point[4], point[5]);
+            }
+        }
+        curve.stream()
+                .filter(point -> point[1] >= best * SATURATION)
+                .findFirst()
+                .ifPresent(point -> System.out.printf(Locale.ROOT, "%nSaturation at concurrency %d: %.1f req/s, p99 %.3f ms%n",
+                        (int) point[0], point[1], point[4]));
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static void print(String label, Histogram latency, long errors) {
+        System.out.printf(Locale.ROOT, "%-22s %9d %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n", label, latency.getTotalCount(), errors,
+                millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+                latency.getMaxValue() / MICROS_IN_MILLI);
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / MICROS_IN_MILLI;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.loadtest;
+
+/**
+ * Requests of the load mix with their share in percent: 80% reads, of them 70% item searches and details and 10% other
+ * listings and details, and 20% booking writes.
+ */
+public enum Operation {
+    SEARCH_ITEMS("GET /items/search", 40),
+    GET_ITEM("GET /items/{id}", 30),
+    GET_BOOKINGS("GET /bookings", 4),
+    GET_REQUESTS("GET /requests/all", 3),
+    GET_USER("GET /users/{id}", 3),
+    POST_BOOKING("POST /bookings", 15),
+    APPROVE_BOOKING("PATCH /bookings/{id}", 5);
+
+    private final String label;
+    private final int weight;
+
+    Operation(String label, int weight) {
+        this.label = label;
+        this.weight = weight;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Operation for a roll between 0 inclusive and 100 exclusive.
+     */
+    public static Operation pick(int roll) {
+        int bound = 0;
+        for (Operation operation : values()) {
+            bound += operation.weight;
+            if (roll < bound) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Roll out of range: " + roll);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Calls of the gateway API on behalf of a user.
+ */
+public class ShareItClient {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String baseUrl;
+
+    public ShareItClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    public ObjectNode object() {
+        return mapper.createObjectNode();
+    }
+
+    public int get(String path, Integer userId) throws IOException, InterruptedException {
+        return send(request(path, userId).GET()).statusCode();
+    }
+
+    public int patch(String path, Integer userId) throws IOException, InterruptedException {
+        return send(request(path, userId).method("PATCH", HttpRequest.BodyPublishers.noBody())).statusCode();
+    }
+
+    public HttpResponse<String> post(String path, Integer userId, JsonNode body) throws IOException, InterruptedException {
+        return send(request(path, userId)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body))));
+    }
+
+    /**
+     * Creates an entity and returns its id, used to seed the data before the load.
+     */
+    public int create(String path, Integer userId, JsonNode body) throws IOException, InterruptedException {
+        HttpResponse<String> response = post(path, userId, body);
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return id(response);
+    }
+
+    public int id(HttpResponse<String> response) throws IOException {
+        return mapper.readTree(response.body()).get("id").asInt();
+    }
+
+    private HttpRequest.Builder request(String path, Integer userId) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json");
+        if (userId != null) {
+            builder.header(USER_HEADER, String.valueOf(userId));
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
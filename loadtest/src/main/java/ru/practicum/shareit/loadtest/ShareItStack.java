@@ -0,0 +1,117 @@
+package ru.practicum.shareit.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server and gateway started from their executable jars as child processes, on free ports, with the given extra
+ * Spring profiles. Their output goes to {@code server.log} and {@code gateway.log} in the output directory.
+ */
+public class ShareItStack implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final Path javaHome;
+    private final String gatewayUrl;
+
+    private ShareItStack(LoadTestConfig config, Path output, List<String> profiles) throws IOException, InterruptedException {
+        javaHome = config.getJavaHome();
+        Files.createDirectories(output);
+        int serverPort = freePort();
+        int gatewayPort = freePort();
+        List<String> serverProfiles = new ArrayList<>(profiles);
+        List<String> serverArgs = new ArrayList<>(List.of("--server.port=" + serverPort));
+        if (config.getDatasourceUrl().isEmpty()) {
+            serverProfiles.add(0, "test");
+            serverArgs.add("--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        } else {
+            serverArgs.add("--spring.datasource.url=" + config.getDatasourceUrl());
+            serverArgs.add("--spring.datasource.username=" + config.getDatasourceUsername());
+            serverArgs.add("--spring.datasource.password=" + config.getDatasourcePassword());
+        }
+        serverArgs.addAll(profilesArgument(serverProfiles));
+        String serverUrl = "http://localhost:" + serverPort;
+        start(config.getServerJar(), output.resolve("server.log"), serverArgs);
+        awaitHealthy(serverUrl);
+        List<String> gatewayArgs = new ArrayList<>(List.of("--server.port=" + gatewayPort, "--shareit-server.url=" + serverUrl));
+        gatewayArgs.addAll(profilesArgument(profiles));
+        start(config.getGatewayJar(), output.resolve("gateway.log"), gatewayArgs);
+        gatewayUrl = "http://localhost:" + gatewayPort;
+        awaitHealthy(gatewayUrl);
+    }
+
+    public static ShareItStack start(LoadTestConfig config, Path output, List<String> profiles)
+            throws IOException, InterruptedException {
+        return new ShareItStack(config, output, profiles);
+    }
+
+    public String getGatewayUrl() {
+        return gatewayUrl;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (int i = processes.size() - 1; i >= 0; i--) {
+            Process process = processes.get(i);
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void start(Path jar, Path log, List<String> args) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Not found " + jar + ", build it with mvn package -DskipTests");
+        }
+        List<String> command = new ArrayList<>(List.of(
+                javaHome.resolve("bin").resolve("java").toString(), "-jar", jar.toString()));
+        command.addAll(args);
+        processes.add(new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start());
+    }
+
+    private void awaitHealthy(String url) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            for (Process process : processes) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with code " + process.exitValue() + " while starting " + url);
+                }
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Not started in " + STARTUP_TIMEOUT + ": " + url);
+    }
+
+    private static List<String> profilesArgument(List<String> profiles) {
+        return profiles.isEmpty() ? List.of() : List.of("--spring.profiles.active=" + String.join(",", profiles));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
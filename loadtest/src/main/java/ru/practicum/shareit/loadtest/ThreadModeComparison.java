@@ -0,0 +1,46 @@
+package ru.practicum.shareit.loadtest;
+
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the load twice on a freshly started stack, first with the default Tomcat thread pools and then with the
+ * {@code virtual-threads} profile, by default at 2000 concurrent connections. The results of every mode are kept in
+ * their own directory and compared in {@code thread-modes.csv}. Needs {@code loadtest.java-home} of Java 21 or newer.
+ */
+public class ThreadModeComparison {
+    private static final Map<String, List<String>> MODES = new LinkedHashMap<>();
+
+    static {
+        MODES.put("platform", List.of());
+        MODES.put("virtual", List.of("virtual-threads"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties("2000");
+        Files.createDirectories(config.getOutput());
+        List<String> rows = new ArrayList<>();
+        for (Map.Entry<String, List<String>> mode : MODES.entrySet()) {
+            Path output = config.getOutput().resolve(mode.getKey());
+            System.out.printf("%nMode %s%n", mode.getKey());
+            try (ShareItStack stack = ShareItStack.start(config, output, mode.getValue())) {
+                for (double[] point : LoadTestRunner.run(config, stack.getGatewayUrl(), output)) {
+                    rows.add(String.format(Locale.ROOT, "%s,%d,%.1f,%d,%.3f,%.3f,%.3f",
+                            mode.getKey(), (int) point[0], point[1], (long) point[2], point[3], point[4], point[5]));
+                }
+            }
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(config.getOutput().resolve("thread-modes.csv")))) {
+            out.println("mode,concurrency,throughput,errors,p50_ms,p99_ms,p999_ms");
+            rows.forEach(out::println);
+        }
+        System.out.printf("%nmode,concurrency,throughput,errors,p50_ms,p99_ms,p999_ms%n");
+        rows.forEach(System.out::println);
+    }
+}
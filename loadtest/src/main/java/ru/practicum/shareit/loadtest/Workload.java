@@ -0,0 +1,84 @@
+package ru.practicum.shareit.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Performs the operations of the mix. Every new booking takes its own two hour slot in the future, so bookings never
+ * overlap and writes are not rejected; waiting bookings are approved later by their item owners.
+ */
+public class Workload {
+    private final ShareItClient client;
+    private final Fixture fixture;
+    private final LocalDateTime firstSlot = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    private final AtomicLong slots = new AtomicLong();
+    private final Queue<int[]> waiting = new ConcurrentLinkedQueue<>();
+
+    public Workload(ShareItClient client, Fixture fixture) {
+        this.client = client;
+        this.fixture = fixture;
+    }
+
+    public void run(Operation operation, Random random, LatencyRecorder recorder) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            switch (operation) {
+                case SEARCH_ITEMS:
+                    recorder.record(operation, start,
+                            client.get("/items/search?text=" + Fixture.word(random), fixture.randomUser(random)));
+                    break;
+                case GET_ITEM:
+                    recorder.record(operation, start,
+                            client.get("/items/" + fixture.item(fixture.randomItemIndex(random)), fixture.randomUser(random)));
+                    break;
+                case GET_BOOKINGS:
+                    recorder.record(operation, start, client.get("/bookings?state=ALL", fixture.randomUser(random)));
+                    break;
+                case GET_REQUESTS:
+                    recorder.record(operation, start, client.get("/requests/all?from=0&size=10", fixture.randomUser(random)));
+                    break;
+                case GET_USER:
+                    recorder.record(operation, start, client.get("/users/" + fixture.randomUser(random), null));
+                    break;
+                case APPROVE_BOOKING:
+                    int[] booking = waiting.poll();
+                    if (booking != null) {
+                        recorder.record(operation, start, client.patch("/bookings/" + booking[0] + "?approved=true", booking[1]));
+                        break;
+                    }
+                    run(Operation.POST_BOOKING, random, recorder);
+                    break;
+                case POST_BOOKING:
+                    postBooking(random, recorder, start);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+        } catch (IOException e) {
+            recorder.error(operation);
+        }
+    }
+
+    private void postBooking(Random random, LatencyRecorder recorder, long start) throws IOException, InterruptedException {
+        int index = fixture.randomItemIndex(random);
+        int owner = fixture.owner(index);
+        LocalDateTime from = firstSlot.plusHours(2 * slots.getAndIncrement());
+        ObjectNode body = client.object()
+                .put("itemId", fixture.item(index))
+                .put("start", from.toString())
+                .put("end", from.plusHours(1).toString());
+        HttpResponse<String> response = client.post("/bookings", fixture.randomUserExcept(owner, random), body);
+        recorder.record(Operation.POST_BOOKING, start, response.statusCode());
+        if (response.statusCode() == 200) {
+            waiting.add(new int[]{client.id(response), owner});
+        }
+    }
+}
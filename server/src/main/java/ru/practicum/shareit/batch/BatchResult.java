@@ -0,0 +1,46 @@
+package ru.practicum.shareit.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch insert: the id of every row in the order of the request, null for a rejected row,
+ * and the reason of every rejection.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private List<Integer> ids = new ArrayList<>();
+    private List<BatchError> errors = new ArrayList<>();
+
+    /**
+     * Adds a row that is going to be inserted, its id is set once it is flushed.
+     *
+     * @return the index of the row
+     */
+    public int accept() {
+        ids.add(null);
+        return ids.size() - 1;
+    }
+
+    public void setId(int index, int id) {
+        ids.set(index, id);
+    }
+
+    public void reject(String error) {
+        errors.add(new BatchError(ids.size(), error));
+        ids.add(null);
+    }
+
+    /**
+     * Adds a row the gateway already rejected, the gateway reports its error.
+     */
+    public void skip() {
+        ids.add(null);
+    }
+}
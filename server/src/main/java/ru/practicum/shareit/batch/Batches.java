@@ -0,0 +1,25 @@
+package ru.practicum.shareit.batch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class Batches {
+    /**
+     * Rows inserted and flushed together. A chunk is a few JDBC batches, the persistence context is cleared
+     * after each one, so the memory of a batch insert does not grow with the number of rows.
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    /**
+     * Up to {@link #CHUNK_SIZE} next rows, empty when there are no rows left. A null row stays in the chunk,
+     * it is a row the gateway rejected.
+     */
+    public static <T> List<T> nextChunk(Iterator<T> rows) {
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (chunk.size() < CHUNK_SIZE && rows.hasNext()) {
+            chunk.add(rows.next());
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.exception.model.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Elements of a JSON array read from the stream one at a time, so the array is never held in memory.
+ * A null element is returned as null.
+ */
+public class JsonArrayIterator<T> implements Iterator<T> {
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private JsonToken token;
+
+    public JsonArrayIterator(ObjectMapper objectMapper, InputStream body, Class<T> type) throws IOException {
+        parser = objectMapper.getFactory().createParser(body);
+        reader = objectMapper.readerFor(type);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new BadRequestException("Expected a JSON array");
+        }
+        token = parser.nextToken();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return token != null && token != JsonToken.END_ARRAY;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            T value = token == JsonToken.VALUE_NULL ? null : reader.readValue(parser);
+            token = parser.nextToken();
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
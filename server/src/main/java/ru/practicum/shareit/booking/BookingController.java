@@ -1,18 +1,27 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.export.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/bookings")
 @RequiredArgsConstructor
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDtoOutgoing postBooking(@RequestHeader("X-Sharer-User-Id") Integer userId, @RequestBody BookingDtoDefault bookingDtoDefault) {
@@ -25,27 +34,50 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDtoOutgoing> getUserBookings(
+    public ResponseEntity<List<BookingDtoOutgoing>> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        return bookingService.getUserBookings(userId, state, from, size);
+        return withNextCursor(bookingService.getUserBookings(userId, state, from, size, cursor), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingDtoOutgoing> getOwnerBookings(
+    public ResponseEntity<List<BookingDtoOutgoing>> getOwnerBookings(
             @RequestHeader("X-Sharer-User-Id") int userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        return bookingService.getOwnerBookings(userId, state, from, size);
+        return withNextCursor(bookingService.getOwnerBookings(userId, state, from, size, cursor), size);
+    }
+
+    /**
+     * Streams all bookings of the owner's items as newline delimited JSON, newest first.
+     */
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter<BookingDtoOutgoing> writer = new NdjsonWriter<>(objectMapper, response);
+        bookingService.exportOwnerBookings(userId, writer);
+        writer.finish();
     }
 
     @PatchMapping("/{bookingId}")
     public BookingDtoOutgoing putBooking(@RequestHeader("X-Sharer-User-Id") Integer userId, @PathVariable Integer bookingId, @RequestParam boolean approved) {
         return bookingService.putBooking(userId, bookingId, approved);
     }
+
+    private ResponseEntity<List<BookingDtoOutgoing>> withNextCursor(List<BookingDtoOutgoing> bookings, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.after(bookings.get(size - 1)).encode());
+        }
+        return response.body(bookings);
+    }
 }
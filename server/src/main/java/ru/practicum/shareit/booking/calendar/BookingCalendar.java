@@ -0,0 +1,341 @@
+package ru.practicum.shareit.booking.calendar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.exception.model.BookingTimeException;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-item calendar of the bookings that hold their time (see {@link BookingStatus#BLOCKING}), ordered by start.
+ * Such bookings never overlap, so the only candidate for a conflict is the booking with the greatest start
+ * before the end of the new one, and overlap checks and last/next lookups are O(log n) without a query.
+ * Items are guarded by striped read/write locks. A booking is added before its transaction commits so that
+ * parallel writers see it, and removed again if the transaction rolls back.
+ * Until the calendar is built at startup, or when it is disabled, callers fall back to the database. It is built
+ * into a new map without the locks, changes made meanwhile are recorded and replayed on the new map before it
+ * replaces the old one. The bookings are read from the primary, a booking the replica lacks would never conflict.
+ * Bookings that have ended are dropped except the latest one of every item, which is still its last booking.
+ * New bookings start in the future, so an ended booking can no longer conflict with them.
+ */
+@Slf4j
+@Component
+public class BookingCalendar {
+    private static final int STRIPES = 64;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final Comparator<Entry> BY_START = Comparator
+            .comparing((Entry entry) -> entry.start)
+            .thenComparingInt(entry -> entry.id);
+
+    private final MemoryBooking memoryBooking;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final boolean enabled;
+    private final Clock clock;
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    private volatile Map<Integer, NavigableSet<Entry>> calendars = new ConcurrentHashMap<>();
+    /**
+     * Changes made while the calendar is being built, null otherwise. Appended under the lock of the item.
+     */
+    private volatile Queue<Consumer<Map<Integer, NavigableSet<Entry>>>> changes;
+    private volatile boolean ready;
+
+    @Autowired
+    public BookingCalendar(MemoryBooking memoryBooking, ReplicaLagGuard replicaLagGuard,
+                           @Value("${shareit.booking.calendar.enabled:true}") boolean enabled) {
+        this(memoryBooking, replicaLagGuard, enabled, Clock.systemDefaultZone());
+    }
+
+    public BookingCalendar(MemoryBooking memoryBooking, ReplicaLagGuard replicaLagGuard, boolean enabled, Clock clock) {
+        this.memoryBooking = memoryBooking;
+        this.replicaLagGuard = replicaLagGuard;
+        this.enabled = enabled;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lockAll();
+        try {
+            Queue<Consumer<Map<Integer, NavigableSet<Entry>>>> recorded = new ConcurrentLinkedQueue<>();
+            calendars.forEach((itemId, calendar) -> calendar.forEach(entry ->
+                    recorded.add(target -> calendar(target, itemId).add(entry))));
+            changes = recorded;
+        } finally {
+            unlockAll();
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<Integer, NavigableSet<Entry>> built = new ConcurrentHashMap<>();
+        int count = replicaLagGuard.readPrimary(() -> scan(built, now));
+        lockAll();
+        try {
+            changes.forEach(change -> change.accept(built));
+            calendars = built;
+            changes = null;
+            ready = true;
+        } finally {
+            unlockAll();
+        }
+        log.info("Booking calendar built: {} bookings of {} items", count, built.size());
+    }
+
+    public boolean overlaps(int itemId, LocalDateTime start, LocalDateTime end) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            return overlapping(itemId, start, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the time of a just saved booking, unless a booking added meanwhile already holds it.
+     */
+    public void add(Booking booking) {
+        int itemId = booking.getItem().getId();
+        Entry entry = new Entry(booking);
+        Lock lock = stripe(itemId).writeLock();
+        LocalDateTime now = LocalDateTime.now(clock);
+        lock.lock();
+        try {
+            if (overlapping(itemId, entry.start, entry.end)) {
+                throw new BookingTimeException("Booking time is taken itemId: " + itemId);
+            }
+            change(itemId, calendar -> {
+                calendar.add(entry);
+                prune(calendar, now);
+            });
+        } finally {
+            lock.unlock();
+        }
+        onRollback(() -> remove(itemId, entry));
+    }
+
+    /**
+     * Applies a status change once it is committed: the booking stays in the calendar only while it holds its time.
+     */
+    public void update(Booking booking) {
+        int itemId = booking.getItem().getId();
+        Entry entry = new Entry(booking);
+        afterCommit(() -> {
+            Lock lock = stripe(itemId).writeLock();
+            lock.lock();
+            try {
+                change(itemId, calendar -> {
+                    calendar.remove(entry);
+                    if (BookingStatus.BLOCKING.contains(entry.status)) {
+                        calendar.add(entry);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public Optional<Booking> last(int itemId, LocalDateTime now) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            NavigableSet<Entry> calendar = calendars.get(itemId);
+            Entry entry = calendar == null ? null : calendar.lower(Entry.at(now, Integer.MIN_VALUE));
+            return Optional.ofNullable(entry).map(found -> found.toBooking(itemId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<Booking> next(int itemId, LocalDateTime now) {
+        Lock lock = stripe(itemId).readLock();
+        lock.lock();
+        try {
+            NavigableSet<Entry> calendar = calendars.get(itemId);
+            Entry entry = calendar == null ? null : calendar.higher(Entry.at(now, Integer.MAX_VALUE));
+            return Optional.ofNullable(entry).map(found -> found.toBooking(itemId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int scan(Map<Integer, NavigableSet<Entry>> built, LocalDateTime now) {
+        int count = 0;
+        Slice<Booking> slice = memoryBooking.findByStatusInOrderById(BookingStatus.BLOCKING, PageRequest.of(0, REBUILD_PAGE_SIZE));
+        while (true) {
+            for (Booking booking : slice) {
+                NavigableSet<Entry> calendar = calendar(built, booking.getItem().getId());
+                calendar.add(new Entry(booking));
+                prune(calendar, now);
+                count++;
+            }
+            if (!slice.hasNext()) {
+                break;
+            }
+            slice = memoryBooking.findByStatusInOrderById(BookingStatus.BLOCKING, slice.nextPageable());
+        }
+        return count;
+    }
+
+    private boolean overlapping(int itemId, LocalDateTime start, LocalDateTime end) {
+        NavigableSet<Entry> calendar = calendars.get(itemId);
+        if (calendar == null) {
+            return false;
+        }
+        Entry before = calendar.lower(Entry.at(end, Integer.MIN_VALUE));
+        return before != null && before.end.isAfter(start);
+    }
+
+    private void remove(int itemId, Entry entry) {
+        Lock lock = stripe(itemId).writeLock();
+        lock.lock();
+        try {
+            change(itemId, calendar -> calendar.remove(entry));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the calendar of an item, recording it while the calendar is being built.
+     * The caller holds the write lock of the item.
+     */
+    private void change(int itemId, Consumer<NavigableSet<Entry>> change) {
+        change.accept(calendar(calendars, itemId));
+        Queue<Consumer<Map<Integer, NavigableSet<Entry>>>> recorded = changes;
+        if (recorded != null) {
+            recorded.add(target -> change.accept(calendar(target, itemId)));
+        }
+    }
+
+    /**
+     * Drops the ended bookings but the latest one. Bookings of an item never overlap, so ordered by start
+     * they are ordered by end too and the ended ones come first.
+     */
+    private static void prune(NavigableSet<Entry> calendar, LocalDateTime now) {
+        while (calendar.size() > 1) {
+            Iterator<Entry> entries = calendar.iterator();
+            entries.next();
+            if (entries.next().end.isAfter(now)) {
+                return;
+            }
+            calendar.pollFirst();
+        }
+    }
+
+    private static NavigableSet<Entry> calendar(Map<Integer, NavigableSet<Entry>> calendars, int itemId) {
+        return calendars.computeIfAbsent(itemId, key -> new TreeSet<>(BY_START));
+    }
+
+    private void lockAll() {
+        for (ReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (ReadWriteLock stripe : stripes) {
+            stripe.writeLock().unlock();
+        }
+    }
+
+    private ReadWriteLock stripe(int itemId) {
+        return stripes[Math.floorMod(itemId, STRIPES)];
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Snapshot of a booking. Entries are equal by start and id, the start of a booking never changes.
+     */
+    private static class Entry {
+        private final int id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Integer bookerId;
+        private final BookingStatus status;
+
+        private Entry(int id, LocalDateTime start, LocalDateTime end, Integer bookerId, BookingStatus status) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.bookerId = bookerId;
+            this.status = status;
+        }
+
+        private Entry(Booking booking) {
+            this(booking.getId(), booking.getStart(), booking.getEnd(), booking.getBooker().getId(), booking.getStatus());
+        }
+
+        private static Entry at(LocalDateTime start, int id) {
+            return new Entry(id, start, start, null, null);
+        }
+
+        private Booking toBooking(int itemId) {
+            return new Booking(id, start, end, Item.builder().id(itemId).build(), User.builder().id(bookerId).build(), status);
+        }
+    }
+}
@@ -14,8 +14,16 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "bookings")
 @NoArgsConstructor
-@AllArgsConstructor
+@NamedEntityGraph(name = Booking.WITH_ITEM_AND_BOOKER, attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 public class Booking {
+    /**
+     * Fetch plan of bookings mapped to {@link BookingDtoOutgoing}, which reads the item and the booker of every row.
+     */
+    public static final String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -27,6 +35,29 @@ public class Booking {
     private Item item;
     @ManyToOne(fetch = FetchType.LAZY)
     private User booker;
+    /**
+     * Owner of the item, copied at creation so the listings of an owner are served by an index of bookings.
+     * An item never changes its owner.
+     */
+    @Column(name = "item_owner_id", updatable = false)
+    private Integer itemOwnerId;
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+    /**
+     * Incremented by every update, an update of a booking changed meanwhile fails.
+     */
+    @Version
+    private long version;
+
+    public Booking(Integer id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingStatus status) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.item = item;
+        this.booker = booker;
+        this.status = status;
+        if (item.getOwner() != null) {
+            this.itemOwnerId = item.getOwner().getId();
+        }
+    }
 }
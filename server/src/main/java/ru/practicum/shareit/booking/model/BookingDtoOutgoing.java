@@ -20,4 +20,17 @@ public class BookingDtoOutgoing {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+
+    /**
+     * Row of the booking listings, see MemoryBooking.SELECT_OUTGOING.
+     */
+    public BookingDtoOutgoing(Integer id, LocalDateTime start, LocalDateTime end,
+                              Integer itemId, String itemName, String itemDescription, Boolean itemIsAvailable,
+                              Integer itemRequestId, Integer bookerId, String bookerName, String bookerEmail,
+                              BookingStatus status) {
+        this(id, start, end,
+                new ItemDto(itemId, itemName, itemDescription, itemIsAvailable, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail),
+                status);
+    }
 }
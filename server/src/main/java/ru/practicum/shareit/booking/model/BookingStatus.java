@@ -1,8 +1,15 @@
 package ru.practicum.shareit.booking.model;
 
+import java.util.Set;
+
 public enum BookingStatus {
     APPROVED,
     CANCELED,
     REJECTED,
-    WAITING
+    WAITING;
+
+    /**
+     * Statuses that hold the booked time, so no other booking of the item may overlap them.
+     */
+    public static final Set<BookingStatus> BLOCKING = Set.of(WAITING, APPROVED);
 }
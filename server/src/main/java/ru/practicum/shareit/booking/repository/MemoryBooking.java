@@ -1,44 +1,119 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.export.NdjsonWriter;
+
+import javax.persistence.QueryHint;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MemoryBooking extends JpaRepository<Booking, Integer> {
-    List<Booking> findByBookerIdOrderByStartDesc(int id, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartAfterOrderByStartDesc(int id, LocalDateTime localDateTime, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(int id, LocalDateTime forStart, LocalDateTime forEnd, Pageable pageable);
-
-    List<Booking> findByBookerIdAndEndBeforeOrderByStartDesc(int id, LocalDateTime localDateTime, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStatusOrderByStartDesc(int id, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdOrderByStartDesc(int id, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartAfterOrderByStartDesc(int id, LocalDateTime localDateTime, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(int id, LocalDateTime forStart, LocalDateTime forEnd, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndEndBeforeOrderByStartDesc(int id, LocalDateTime localDateTime, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(int id, BookingStatus status, Pageable pageable);
+    /*
+     * Listings are read in seek form: rows strictly after the (start, id) cursor, so the depth of a page does not
+     * change its cost. The first page uses BookingCursor.FIRST. The row value comparison is a single range bound
+     * of the (booker_id, start_time DESC, id DESC) and (item_owner_id, start_time DESC, id DESC) indexes and of their
+     * variants with the status, see V9__add_booking_seek_indexes.sql.
+     */
+    String AFTER_CURSOR = "(b.start, b.id) < (?2, ?3) ";
+    String BY_START_AND_ID = "order by b.start desc, b.id desc";
+
+    /*
+     * Listings select BookingDtoOutgoing rows directly: only the columns of the response are read and no entities
+     * are put into the persistence context. Single bookings are mapped from the entity, which is loaded with its
+     * item and booker in the same select, see Booking.WITH_ITEM_AND_BOOKER. The other methods only read the ids
+     * of the item and the booker, which their proxies hold without a select.
+     */
+    String SELECT_OUTGOING = "select new ru.practicum.shareit.booking.model.BookingDtoOutgoing(" +
+            "b.id, b.start, b.end, i.id, i.name, i.description, i.isAvailable, r.id, u.id, u.name, u.email, b.status) " +
+            "from Booking as b join b.item as i left join i.request as r join b.booker as u ";
+
+    @Query(SELECT_OUTGOING + "where u.id = ?1 and " + AFTER_CURSOR + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findByBookerIdAfter(int bookerId, LocalDateTime cursorStart, int cursorId, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where u.id = ?1 and " + AFTER_CURSOR +
+            "and b.start > ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findFutureByBookerIdAfter(int bookerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where u.id = ?1 and " + AFTER_CURSOR +
+            "and b.start < ?4 and b.end > ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findCurrentByBookerIdAfter(int bookerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where u.id = ?1 and " + AFTER_CURSOR +
+            "and b.end < ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findPastByBookerIdAfter(int bookerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where u.id = ?1 and " + AFTER_CURSOR +
+            "and b.status = ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findByBookerIdAndStatusAfter(int bookerId, LocalDateTime cursorStart, int cursorId, BookingStatus status, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 and " + AFTER_CURSOR + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findByItemOwnerIdAfter(int ownerId, LocalDateTime cursorStart, int cursorId, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 and " + AFTER_CURSOR +
+            "and b.start > ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findFutureByItemOwnerIdAfter(int ownerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 and " + AFTER_CURSOR +
+            "and b.start < ?4 and b.end > ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findCurrentByItemOwnerIdAfter(int ownerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 and " + AFTER_CURSOR +
+            "and b.end < ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findPastByItemOwnerIdAfter(int ownerId, LocalDateTime cursorStart, int cursorId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 and " + AFTER_CURSOR +
+            "and b.status = ?4 " + BY_START_AND_ID)
+    List<BookingDtoOutgoing> findByItemOwnerIdAndStatusAfter(int ownerId, LocalDateTime cursorStart, int cursorId, BookingStatus status, Pageable pageable);
+
+    /**
+     * All bookings of the owner's items, newest first, read from a cursor. The stream must be closed.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = NdjsonWriter.FETCH_SIZE))
+    @Query(SELECT_OUTGOING + "where b.itemOwnerId = ?1 " + BY_START_AND_ID)
+    Stream<BookingDtoOutgoing> streamByItemOwnerId(int ownerId);
 
     Booking findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(int itemId, BookingStatus status, LocalDateTime localDateTime);
 
     Booking findFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDesc(int itemId, BookingStatus status, LocalDateTime localDateTime);
 
+    @Query("select case when count(b) > 0 then true else false end " +
+            "from Booking as b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.start < ?4 and b.end > ?3")
+    boolean existsOverlapping(int itemId, Collection<BookingStatus> statuses, LocalDateTime start, LocalDateTime end);
+
+    Slice<Booking> findByStatusInOrderById(Collection<BookingStatus> statuses, Pageable pageable);
+
     Boolean existsByBookerIdAndItemIdAndEndBefore(int bookerId, int itemId, LocalDateTime localDateTime);
 
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Integer id);
+
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
     Optional<Booking> findByIdAndItemOwnerId(int id, int ownerId);
 
     List<Booking> findByBookerIdAndItemId(int bookerId, int itemId);
 
-    List<Booking> findAllByItemOwnerIdInAndStatusNotOrderByStart(List<Integer> ownerId, BookingStatus status);
+    @Query(value = "select id, start_time, end_time, item_id, item_owner_id, booker_id, status, version " +
+            "from (select b.*, row_number() over (partition by b.item_id order by b.start_time desc) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (?1) and b.status <> 'REJECTED' and b.start_time < ?2 " +
+            "union all " +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_time) as rn " +
+            "from bookings as b " +
+            "where b.item_id in (?1) and b.status <> 'REJECTED' and b.start_time > ?2) as nearest " +
+            "where rn = 1", nativeQuery = true)
+    List<Booking> findLastAndNextByItemIdIn(Collection<Integer> itemIds, LocalDateTime now);
 }
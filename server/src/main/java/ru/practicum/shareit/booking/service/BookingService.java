@@ -4,6 +4,7 @@ import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDtoOutgoing postBooking(BookingDtoDefault bookingDtoDefault, int id);
@@ -12,7 +13,9 @@ public interface BookingService {
 
     BookingDtoOutgoing getBooking(int userId, int bookingId);
 
-    List<BookingDtoOutgoing> getUserBookings(int userId, String stateString, int from, int size);
+    List<BookingDtoOutgoing> getUserBookings(int userId, String stateString, int from, int size, String cursor);
 
-    List<BookingDtoOutgoing> getOwnerBookings(int userId, String stateString, int from, int size);
+    List<BookingDtoOutgoing> getOwnerBookings(int userId, String stateString, int from, int size, String cursor);
+
+    void exportOwnerBookings(int userId, Consumer<BookingDtoOutgoing> consumer);
 }
@@ -2,21 +2,28 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
 import ru.practicum.shareit.booking.model.*;
 import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.booking.repository.OffsetPageRequest;
+import ru.practicum.shareit.config.ReplicaLagGuard;
 import ru.practicum.shareit.exception.model.*;
+import ru.practicum.shareit.item.cache.ItemDetailCache;
 import ru.practicum.shareit.item.model.item.Item;
 import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.MemoryUser;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static ru.practicum.shareit.booking.model.BookingMapper.bookingFromDto;
 import static ru.practicum.shareit.booking.model.BookingMapper.bookingToDtoOutgoing;
@@ -26,19 +33,25 @@ import static ru.practicum.shareit.booking.model.BookingMapper.bookingToDtoOutgo
 @Slf4j
 @Transactional
 public class BookingServiceImpl implements BookingService {
+    private static final String PERIOD_CONSTRAINT = "ex_bookings_item_period";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final MemoryBooking memoryBooking;
-    private final MemoryUser memoryUser;
+    private final UserCache userCache;
     private final MemoryItem memoryItem;
+    private final BookingCalendar bookingCalendar;
+    private final ItemDetailCache itemDetailCache;
+    private final ReplicaLagGuard replicaLagGuard;
 
     @Override
     public BookingDtoOutgoing postBooking(BookingDtoDefault bookingDtoDefault, int userId) {
         log.info("Post booking: {} id: {}", bookingDtoDefault, userId);
         bookingDtoDefault.setBookerId(userId);
         bookingDtoDefault.setStatus(BookingStatus.WAITING);
-        User user = memoryUser.findById(userId)
+        User user = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundUserException("Not found userId: " + userId));
         int itemId = bookingDtoDefault.getItemId();
-        Item item = memoryItem.findById(itemId)
+        Item item = memoryItem.findLockedById(itemId)
                 .orElseThrow(() -> new NotFoundItemException("Not found itemId: " + itemId));
         if (item.getOwner().getId() == userId) {
             throw new NotFoundException("This is your thing");
@@ -46,12 +59,24 @@ public class BookingServiceImpl implements BookingService {
         if (!item.getIsAvailable()) {
             throw new NoAccessException("No access itemId: " + itemId);
         }
-        Booking bookingAfter = memoryBooking.findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(itemId, BookingStatus.APPROVED, bookingDtoDefault.getStart());
-        Booking bookingBefore = memoryBooking.findFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDesc(itemId, BookingStatus.APPROVED, bookingDtoDefault.getStart());
-        if (!bookingDtoDefault.getEnd().isAfter(bookingDtoDefault.getStart()) || (intersectionBooking(bookingDtoDefault, bookingAfter) || intersectionBooking(bookingDtoDefault, bookingBefore))) {
+        if (!bookingDtoDefault.getEnd().isAfter(bookingDtoDefault.getStart())) {
             throw new BookingTimeException("The end of the booking is later than the beginning");
         }
-        Booking booking = memoryBooking.save(bookingFromDto(bookingDtoDefault, user, item));
+        if (overlapping(itemId, bookingDtoDefault.getStart(), bookingDtoDefault.getEnd())) {
+            throw new BookingTimeException("Booking time is taken itemId: " + itemId);
+        }
+        Booking booking;
+        try {
+            booking = memoryBooking.saveAndFlush(bookingFromDto(bookingDtoDefault, user, item));
+        } catch (DataIntegrityViolationException e) {
+            if (!isPeriodTaken(e)) {
+                throw e;
+            }
+            throw new BookingTimeException("Booking time is taken itemId: " + itemId);
+        }
+        bookingCalendar.add(booking);
+        itemDetailCache.invalidate(itemId);
+        replicaLagGuard.recordWrite(userId);
         return bookingToDtoOutgoing(booking);
     }
 
@@ -68,14 +93,19 @@ public class BookingServiceImpl implements BookingService {
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
-        return bookingToDtoOutgoing(memoryBooking.save(booking));
+        Booking updated = memoryBooking.save(booking);
+        bookingCalendar.update(updated);
+        itemDetailCache.invalidate(updated.getItem().getId());
+        replicaLagGuard.recordWrite(userId);
+        replicaLagGuard.recordWrite(updated.getBooker().getId());
+        return bookingToDtoOutgoing(updated);
     }
 
     @Override
     @Transactional(readOnly = true)
     public BookingDtoOutgoing getBooking(int userId, int bookingId) {
         log.info("Get booking bookingId: {} userId {}", bookingId, userId);
-        if (!memoryUser.existsById(userId)) {
+        if (!userCache.existsById(userId)) {
             throw new NotFoundException("Not found userId: " + userId);
         }
         Booking booking = memoryBooking.findById(bookingId)
@@ -88,80 +118,120 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingDtoOutgoing> getUserBookings(int userId, String stateString, int from, int size) {
-        log.info("Get user booking userId: {} status: {}", userId, stateString);
+    public List<BookingDtoOutgoing> getUserBookings(int userId, String stateString, int from, int size, String cursor) {
+        log.info("Get user booking userId: {} status: {} cursor: {}", userId, stateString, cursor);
         BookingState state = BookingState.getBookingState(stateString);
-        if (!memoryUser.existsById(userId)) {
+        if (!userCache.existsById(userId)) {
             throw new NotFoundException("Not found userId: " + userId);
         }
-        List<Booking> bookings;
+        BookingCursor after = getCursor(cursor);
+        Pageable pageable = getPageable(from, size, cursor);
+        LocalDateTime start = after.getStart();
+        int id = after.getId();
+        List<BookingDtoOutgoing> bookings;
 
         switch (state) {
             case FUTURE:
-                bookings = memoryBooking.findByBookerIdAndStartAfterOrderByStartDesc(userId, LocalDateTime.now(), getPageable(from, size));
+                bookings = memoryBooking.findFutureByBookerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case CURRENT:
-                LocalDateTime now = LocalDateTime.now();
-                bookings = memoryBooking.findByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, now, now, getPageable(from, size));
+                bookings = memoryBooking.findCurrentByBookerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case PAST:
-                bookings = memoryBooking.findByBookerIdAndEndBeforeOrderByStartDesc(userId, LocalDateTime.now(), getPageable(from, size));
+                bookings = memoryBooking.findPastByBookerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case WAITING:
-                bookings = memoryBooking.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING, getPageable(from, size));
+                bookings = memoryBooking.findByBookerIdAndStatusAfter(userId, start, id, BookingStatus.WAITING, pageable);
                 break;
             case REJECTED:
-                bookings = memoryBooking.findByBookerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED, getPageable(from, size));
+                bookings = memoryBooking.findByBookerIdAndStatusAfter(userId, start, id, BookingStatus.REJECTED, pageable);
                 break;
             default:
-                bookings = memoryBooking.findByBookerIdOrderByStartDesc(userId, getPageable(from, size));
+                bookings = memoryBooking.findByBookerIdAfter(userId, start, id, pageable);
         }
 
-        return bookings.stream()
-                .map(BookingMapper::bookingToDtoOutgoing)
-                .collect(Collectors.toList());
+        return bookings;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingDtoOutgoing> getOwnerBookings(int userId, String stateString, int from, int size) {
-        log.info("Get owner bookings userId: {} state: {}", userId, stateString);
+    public List<BookingDtoOutgoing> getOwnerBookings(int userId, String stateString, int from, int size, String cursor) {
+        log.info("Get owner bookings userId: {} state: {} cursor: {}", userId, stateString, cursor);
         BookingState state = BookingState.getBookingState(stateString);
-        if (!memoryUser.existsById(userId)) {
+        if (!userCache.existsById(userId)) {
             throw new NotFoundException("Not found userId: " + userId);
         }
-        List<Booking> bookings;
+        BookingCursor after = getCursor(cursor);
+        Pageable pageable = getPageable(from, size, cursor);
+        LocalDateTime start = after.getStart();
+        int id = after.getId();
+        List<BookingDtoOutgoing> bookings;
         switch (state) {
             case FUTURE:
-                bookings = memoryBooking.findByItemOwnerIdAndStartAfterOrderByStartDesc(userId, LocalDateTime.now(), getPageable(from, size));
+                bookings = memoryBooking.findFutureByItemOwnerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case CURRENT:
-                LocalDateTime now = LocalDateTime.now();
-                bookings = memoryBooking.findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(userId, now, now, getPageable(from, size));
+                bookings = memoryBooking.findCurrentByItemOwnerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case PAST:
-                bookings = memoryBooking.findByItemOwnerIdAndEndBeforeOrderByStartDesc(userId, LocalDateTime.now(), getPageable(from, size));
+                bookings = memoryBooking.findPastByItemOwnerIdAfter(userId, start, id, LocalDateTime.now(), pageable);
                 break;
             case WAITING:
-                bookings = memoryBooking.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.WAITING, getPageable(from, size));
+                bookings = memoryBooking.findByItemOwnerIdAndStatusAfter(userId, start, id, BookingStatus.WAITING, pageable);
                 break;
             case REJECTED:
-                bookings = memoryBooking.findByItemOwnerIdAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED, getPageable(from, size));
+                bookings = memoryBooking.findByItemOwnerIdAndStatusAfter(userId, start, id, BookingStatus.REJECTED, pageable);
                 break;
             default:
-                bookings = memoryBooking.findByItemOwnerIdOrderByStartDesc(userId, getPageable(from, size));
+                bookings = memoryBooking.findByItemOwnerIdAfter(userId, start, id, pageable);
+        }
+        return bookings;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOwnerBookings(int userId, Consumer<BookingDtoOutgoing> consumer) {
+        log.info("Export owner bookings userId: {}", userId);
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundException("Not found userId: " + userId);
+        }
+        try (Stream<BookingDtoOutgoing> bookings = memoryBooking.streamByItemOwnerId(userId)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    private boolean overlapping(int itemId, LocalDateTime start, LocalDateTime end) {
+        if (bookingCalendar.isReady()) {
+            return bookingCalendar.overlaps(itemId, start, end);
         }
-        return bookings.stream()
-                .map(BookingMapper::bookingToDtoOutgoing)
-                .collect(Collectors.toList());
+        return memoryBooking.existsOverlapping(itemId, BookingStatus.BLOCKING, start, end);
+    }
+
+    private BookingCursor getCursor(String cursor) {
+        return cursor == null ? BookingCursor.FIRST : BookingCursor.decode(cursor);
     }
 
-    private boolean intersectionBooking(BookingDtoDefault bookingDtoDefault, Booking booking) {
-        return (!(booking == null || booking.getStart() == null || booking.getEnd() == null) && ((booking.getStart().isAfter(bookingDtoDefault.getStart()) && booking.getStart().isBefore(bookingDtoDefault.getEnd())) || (booking.getEnd().isAfter(bookingDtoDefault.getStart()) && booking.getEnd().isBefore(bookingDtoDefault.getEnd()))));
+    /**
+     * A cursor already points at the first row of the page, otherwise {@code from} is skipped from the start.
+     */
+    private Pageable getPageable(int from, int size, String cursor) {
+        return new OffsetPageRequest(cursor == null ? from : 0, size);
     }
 
-    private Pageable getPageable(int from, int size) {
-        int page = from / size;
-        return PageRequest.of(page, size);
+    /**
+     * Whether a booking was rejected by the exclusion constraint of overlapping bookings of an item, other violations
+     * such as a missing item are not a taken time.
+     */
+    private static boolean isPeriodTaken(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException
+                    && PERIOD_CONSTRAINT.equalsIgnoreCase(((ConstraintViolationException) cause).getConstraintName())) {
+                return true;
+            }
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
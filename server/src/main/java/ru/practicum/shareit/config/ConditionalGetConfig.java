@@ -0,0 +1,20 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Strong ETags of the list responses, a hash of the response body. A list is assembled from many entities, so
+ * the body is still built, but a matching If-None-Match gets 304 without it. Item details set their own ETag.
+ */
+@Configuration
+public class ConditionalGetConfig {
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> listEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/items", "/items/search", "/bookings", "/bookings/owner", "/requests", "/requests/all");
+        return registration;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Connections of read-only transactions come from the replica, all others from the primary. The routing is decided
+ * when a connection is obtained, so it has to sit behind a LazyConnectionDataSourceProxy that defers that until
+ * the transaction has been set up.
+ */
+class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReplicaLagGuard.isPinnedToPrimary()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
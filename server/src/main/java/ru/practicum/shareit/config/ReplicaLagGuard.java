@@ -0,0 +1,114 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes over an asynchronous replica. A user who committed a write is remembered for
+ * {@code shareit.datasource.replica-max-lag}, and the read-only transactions of their requests go to the primary
+ * until then, so a booking just posted is not missing from the listing read right after it.
+ * Values that outlive the request, cache entries, the booking calendar and the search index, are always loaded
+ * from the primary, see {@link #readPrimary}.
+ */
+@Component
+public class ReplicaLagGuard implements HandlerInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final Cache<Integer, Boolean> recentWriters;
+    /**
+     * Null without a replica, then every read goes to the primary anyway.
+     */
+    private final TransactionTemplate primaryReads;
+
+    public ReplicaLagGuard(@Value("${shareit.datasource.replica-max-lag:5s}") Duration maxLag,
+                           @Value("${shareit.datasource.replica.jdbc-url:}") String replicaUrl,
+                           ObjectProvider<PlatformTransactionManager> transactionManager) {
+        recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag)
+                .maximumSize(100_000)
+                .build();
+        if (replicaUrl.isEmpty()) {
+            primaryReads = null;
+        } else {
+            primaryReads = new TransactionTemplate(transactionManager.getObject());
+            primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            primaryReads.setReadOnly(true);
+        }
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PRIMARY.get() != null;
+    }
+
+    /**
+     * Runs the reads of a value that is cached on the primary. The eviction after a change does not help against
+     * a value loaded from a replica that has not caught up with the change yet, it would be cached again.
+     * A read-only transaction that may already hold a replica connection is suspended for a new one on the primary.
+     */
+    public <T> T readPrimary(Supplier<T> reads) {
+        if (primaryReads == null || onPrimary()) {
+            return reads.get();
+        }
+        PRIMARY.set(true);
+        try {
+            return primaryReads.execute(status -> reads.get());
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    public void recordWrite(int userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentWriters.put(userId, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, true);
+            }
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = request.getHeader(USER_HEADER);
+        if (userId != null && wroteRecently(userId)) {
+            PRIMARY.set(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PRIMARY.remove();
+    }
+
+    private static boolean onPrimary() {
+        return isPinnedToPrimary() || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean wroteRecently(String userId) {
+        try {
+            return recentWriters.getIfPresent(Integer.valueOf(userId)) != null;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
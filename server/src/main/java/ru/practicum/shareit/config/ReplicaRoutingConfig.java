@@ -0,0 +1,88 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Read-only transactions on a replica, enabled by {@code shareit.datasource.replica.jdbc-url}. The primary pool is
+ * configured by {@code spring.datasource.*} as usual, the replica pool by the Hikari settings under
+ * {@code shareit.datasource.replica.*}. The pools are named {@code primary} and {@code replica}, so their
+ * {@code hikaricp.*} metrics carry a pool tag. Flyway migrates the primary only, an embedded replica without
+ * replication is migrated too with {@code shareit.datasource.migrate-replica}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.jdbc-url")
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+    /**
+     * Looked up when the interceptors are registered, the guard needs the transaction manager built on these pools.
+     */
+    private final ObjectProvider<ReplicaLagGuard> replicaLagGuard;
+
+    public ReplicaRoutingConfig(ObjectProvider<ReplicaLagGuard> replicaLagGuard) {
+        this.replicaLagGuard = replicaLagGuard;
+    }
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("shareit.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadOnlyRoutingDataSource.Route.PRIMARY, primary,
+                ReadOnlyRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.datasource.migrate-replica", havingValue = "true")
+    public FlywayMigrationStrategy replicaMigrationStrategy(@Qualifier("replicaDataSource") DataSource replica) {
+        return flyway -> {
+            flyway.migrate();
+            Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(replica)
+                    .load()
+                    .migrate();
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(replicaLagGuard.getObject());
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -31,6 +32,16 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    /**
+     * An update of an entity that another request changed after it was read, the client should read it again.
+     */
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handlerOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        log.error("Version conflict {}", e.getMessage());
+        return new ErrorResponse("Changed by another request");
+    }
+
     @ExceptionHandler({OwnerItemException.class})
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ErrorResponse handleOwnerItemException(RuntimeException e) {
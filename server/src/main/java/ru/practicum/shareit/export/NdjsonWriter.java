@@ -0,0 +1,61 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows to the response as newline delimited JSON while they are read, so an export holds one row at a time.
+ * The output is flushed only when the response buffer is full. The response is started by the first row or by
+ * {@link #finish()}, so an exception thrown before that is still answered by the ErrorHandler.
+ */
+public class NdjsonWriter<T> implements Consumer<T> {
+    /**
+     * Rows the JDBC driver fetches per round trip while an export is read from a cursor.
+     */
+    public static final String FETCH_SIZE = "500";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.response = response;
+    }
+
+    @Override
+    public void accept(T row) {
+        try {
+            JsonGenerator rows = generator();
+            writer.writeValue(rows, row);
+            rows.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        generator().flush();
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream())
+                    .setRootValueSeparator(null);
+        }
+        return generator;
+    }
+}
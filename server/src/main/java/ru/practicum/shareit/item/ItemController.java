@@ -1,11 +1,20 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.batch.BatchResult;
+import ru.practicum.shareit.batch.JsonArrayIterator;
+import ru.practicum.shareit.export.NdjsonWriter;
 import ru.practicum.shareit.item.model.comment.CommentDto;
+import ru.practicum.shareit.item.model.item.ItemDetail;
 import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -16,6 +25,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto postItem(
@@ -25,6 +35,17 @@ public class ItemController {
         return itemService.postItem(itemDto, userId);
     }
 
+    /**
+     * Reads the JSON array of items one element at a time while they are inserted.
+     */
+    @PostMapping("/batch")
+    public BatchResult postItems(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            InputStream body
+    ) throws IOException {
+        return itemService.postItems(userId, new JsonArrayIterator<>(objectMapper, body, ItemDto.class));
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto postComment(
             @RequestHeader("X-Sharer-User-Id") Integer userId,
@@ -34,12 +55,16 @@ public class ItemController {
         return itemService.postComment(userId, itemId, commentDto);
     }
 
+    /**
+     * Answers a matching If-None-Match with 304, the cached details are not serialized then.
+     */
     @GetMapping("/{itemId}")
-    public ItemDto getItemById(
+    public ResponseEntity<ItemDto> getItemById(
             @RequestHeader("X-Sharer-User-Id") Integer userId,
             @PathVariable Integer itemId
     ) {
-        return itemService.getItem(userId, itemId);
+        ItemDetail detail = itemService.getItemDetail(userId, itemId);
+        return ResponseEntity.ok().eTag(detail.getEtag()).body(detail.getItem());
     }
 
     @GetMapping
@@ -51,6 +76,19 @@ public class ItemController {
         return itemService.getItems(userId, from, size);
     }
 
+    /**
+     * Streams all items of the owner as newline delimited JSON, by id.
+     */
+    @GetMapping("/export")
+    public void exportItems(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter<ItemDto> writer = new NdjsonWriter<>(objectMapper, response);
+        itemService.exportItems(userId, writer);
+        writer.finish();
+    }
+
     @GetMapping("/search")
     public List<ItemDto> getItems(
             @RequestParam String text,
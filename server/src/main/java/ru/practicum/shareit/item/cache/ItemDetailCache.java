@@ -0,0 +1,125 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.BookingDtoDefault;
+import ru.practicum.shareit.item.model.item.ItemDetail;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Assembled item details by item and by whether the viewer is the owner, only the owner sees last and next bookings.
+ * An owner view expires when its next booking starts, because then the next booking becomes the last one.
+ * Entries are invalidated after a transaction that changed the item, its comments or its bookings commits.
+ * Loading holds the entry, so an invalidation waits for a load in progress and never leaves stale data behind.
+ * An entry keeps the ETag of the details, so a matching If-None-Match is answered without loading or serializing them.
+ */
+@Component
+public class ItemDetailCache {
+    private final Duration ttl;
+    private final Cache<Key, ItemDetail> details;
+    private final Cache<Integer, Integer> owners;
+
+    public ItemDetailCache(@Value("${shareit.item.detail-cache.maximum-size:10000}") long maximumSize,
+                           @Value("${shareit.item.detail-cache.ttl:10m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        details = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new DetailExpiry())
+                .recordStats()
+                .build();
+        owners = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, details, "itemDetails");
+    }
+
+    public Integer getOwner(int itemId) {
+        return owners.getIfPresent(itemId);
+    }
+
+    public void putOwner(int itemId, int ownerId) {
+        owners.put(itemId, ownerId);
+    }
+
+    public ItemDetail get(int itemId, boolean viewerIsOwner, Supplier<ItemDetail> loader) {
+        return details.get(new Key(itemId, viewerIsOwner), key -> loader.get());
+    }
+
+    public void invalidate(int itemId) {
+        afterCommit(() -> {
+            details.invalidate(new Key(itemId, true));
+            details.invalidate(new Key(itemId, false));
+        });
+    }
+
+    public void remove(int itemId) {
+        afterCommit(() -> {
+            details.invalidate(new Key(itemId, true));
+            details.invalidate(new Key(itemId, false));
+            owners.invalidate(itemId);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @ToString
+    @EqualsAndHashCode
+    private static class Key {
+        private final int itemId;
+        private final boolean viewerIsOwner;
+
+        private Key(int itemId, boolean viewerIsOwner) {
+            this.itemId = itemId;
+            this.viewerIsOwner = viewerIsOwner;
+        }
+    }
+
+    private class DetailExpiry implements Expiry<Key, ItemDetail> {
+        @Override
+        public long expireAfterCreate(Key key, ItemDetail detail, long currentTime) {
+            BookingDtoDefault next = detail.getItem().getNextBooking();
+            if (next == null || next.getStart() == null) {
+                return ttl.toNanos();
+            }
+            Duration untilNext = Duration.between(LocalDateTime.now(), next.getStart());
+            if (untilNext.isNegative()) {
+                return 0;
+            }
+            return Math.min(untilNext.toNanos(), ttl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, ItemDetail detail, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, detail, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, ItemDetail detail, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -10,17 +10,19 @@ import javax.persistence.*;
  * TODO Sprint add-controllers.
  */
 
-@Builder
 @Getter
 @Setter
 @ToString
 @Entity
 @NoArgsConstructor
-@AllArgsConstructor
 @Table(name = "items")
 public class Item {
+    /**
+     * Taken from the sequence in blocks of the JDBC batch size, so inserts of many items are batched.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Integer id;
     @Column(length = 60)
     private String name;
@@ -34,4 +36,19 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private Request request;
+    /**
+     * Incremented by every update, an update of an item changed meanwhile fails. Also the ETag of the item.
+     */
+    @Version
+    private long version;
+
+    @Builder
+    public Item(Integer id, String name, String description, Boolean isAvailable, User owner, Request request) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isAvailable = isAvailable;
+        this.owner = owner;
+        this.request = request;
+    }
 }
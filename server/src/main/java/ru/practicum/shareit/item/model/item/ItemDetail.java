@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.model.item;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Item details as one kind of viewer sees them, with the strong ETag of exactly this representation.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ItemDetail {
+    private final ItemDto item;
+    private final String etag;
+}
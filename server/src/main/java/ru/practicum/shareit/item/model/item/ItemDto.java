@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.model.item;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
@@ -7,7 +8,7 @@ import ru.practicum.shareit.item.model.comment.CommentDto;
 
 import java.util.List;
 
-@AllArgsConstructor
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 @Getter
 @Setter
 @EqualsAndHashCode
@@ -22,4 +23,11 @@ public class ItemDto {
     private BookingDtoDefault lastBooking;
     private BookingDtoDefault nextBooking;
     private List<CommentDto> comments;
+
+    /**
+     * Item without bookings and comments, as selected by the listings.
+     */
+    public ItemDto(Integer id, String name, String description, Boolean isAvailable, Integer requestId) {
+        this(id, name, description, isAvailable, requestId, null, null, null);
+    }
 }
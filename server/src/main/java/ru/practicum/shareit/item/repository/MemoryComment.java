@@ -1,10 +1,21 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.comment.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemoryComment extends JpaRepository<Comment, Integer> {
+    @EntityGraph(attributePaths = "author")
     List<Comment> findByItemIdOrderByCreatedDesc(int itemId);
-}
\ No newline at end of file
+
+    @Query("select c " +
+            "from Comment as c " +
+            "join fetch c.author " +
+            "where c.item.id in ?1 " +
+            "order by c.created desc")
+    List<Comment> findAllByItemIdIn(Collection<Integer> itemIds);
+}
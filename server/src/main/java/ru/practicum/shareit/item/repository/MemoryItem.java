@@ -2,24 +2,49 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.export.NdjsonWriter;
 import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MemoryItem extends JpaRepository<Item, Integer> {
-    List<Item> findByOwnerId(int userId, Pageable pageable);
+public interface MemoryItem extends JpaRepository<Item, Integer>, MemoryItemPatch {
+    @Query("select new ru.practicum.shareit.item.model.item.ItemDto(it.id, it.name, it.description, it.isAvailable, r.id) " +
+            "from Item as it left join it.request as r " +
+            "where it.owner.id = ?1 " +
+            "order by it.id")
+    List<ItemDto> findDtoByOwnerIdOrderById(int userId, Pageable pageable);
+
+    /**
+     * All items of the owner by id, read from a cursor. The stream must be closed.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = NdjsonWriter.FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.item.model.item.ItemDto(it.id, it.name, it.description, it.isAvailable, r.id) " +
+            "from Item as it left join it.request as r " +
+            "where it.owner.id = ?1 " +
+            "order by it.id")
+    Stream<ItemDto> streamByOwnerId(int userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Item> findLockedById(int id);
 
     @Query("select it " +
             "from Item as it " +
             "where (lower(it.name) like lower(concat('%', ?1,'%')) " +
             "or lower(it.description) like lower(concat('%', ?1,'%'))) " +
-            "and it.isAvailable = TRUE")
+            "and it.isAvailable = TRUE " +
+            "order by case " +
+            "when lower(it.name) like lower(concat(?1, '%')) then 0 " +
+            "when lower(it.name) like lower(concat('%', ?1, '%')) then 1 " +
+            "else 2 end, it.id")
     List<Item> findByText(String text, Pageable pageable);
 
     List<Item> findByRequestId(int requestId);
-
-    List<Item> findAllByRequestRequestorId(Integer requestorId);
-
-    List<Item> findAllByRequestRequestorIdIn(List<Integer> userId);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.repository;
+
+/**
+ * Partial update of an item with one UPDATE and without reading the item first.
+ */
+public interface MemoryItemPatch {
+    /**
+     * Writes only the non-null fields and increments the version of the item when it belongs to the owner.
+     *
+     * @return the number of updated rows, 0 when there is no such item or it belongs to another user
+     */
+    int patch(int itemId, int ownerId, String name, String description, Boolean isAvailable, Integer requestId);
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.request.model.Request;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+
+@RequiredArgsConstructor
+public class MemoryItemPatchImpl implements MemoryItemPatch {
+    private final EntityManager entityManager;
+
+    @Override
+    public int patch(int itemId, int ownerId, String name, String description, Boolean isAvailable, Integer requestId) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Item> update = builder.createCriteriaUpdate(Item.class);
+        Root<Item> item = update.from(Item.class);
+        if (name != null) {
+            update.set(item.<String>get("name"), name);
+        }
+        if (description != null) {
+            update.set(item.<String>get("description"), description);
+        }
+        if (isAvailable != null) {
+            update.set(item.<Boolean>get("isAvailable"), isAvailable);
+        }
+        if (requestId != null) {
+            update.set(item.<Request>get("request"), entityManager.getReference(Request.class, requestId));
+        }
+        update.set(item.<Long>get("version"), builder.sum(item.<Long>get("version"), 1L));
+        update.where(builder.equal(item.get("id"), itemId), builder.equal(item.get("owner").get("id"), ownerId));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
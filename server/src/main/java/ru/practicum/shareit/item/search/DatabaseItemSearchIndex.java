@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.in-memory", havingValue = "false")
+public class DatabaseItemSearchIndex implements ItemSearchIndex {
+    private final MemoryItem memoryItem;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        return memoryItem.findByText(text, pageable);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+
+    @Override
+    public void remove(int itemId) {
+    }
+}
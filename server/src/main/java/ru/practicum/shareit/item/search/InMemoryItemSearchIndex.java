@@ -0,0 +1,271 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.request.model.Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of name and description trigrams kept in the server memory.
+ * Candidates are found by intersecting the posting lists of the query trigrams and then checked for the substring,
+ * so results are the same as {@link MemoryItem#findByText}. Changes are applied after the transaction commits.
+ * Until the index is built at startup the search is served by the database. It is built from the primary,
+ * an item the replica lacks would be missing from the search until its next update.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.in-memory", havingValue = "true", matchIfMissing = true)
+public class InMemoryItemSearchIndex implements ItemSearchIndex {
+    private static final int GRAM = 3;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final MemoryItem memoryItem;
+    private final ReplicaLagGuard replicaLagGuard;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, Document> documents = new TreeMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            replicaLagGuard.readPrimary(this::scan);
+            ready = true;
+            log.info("Item search index built: {} items, {} trigrams", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int scan() {
+        Slice<Item> slice = memoryItem.findAll(PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+        slice.forEach(this::put);
+        while (slice.hasNext()) {
+            slice = memoryItem.findAll(slice.nextPageable());
+            slice.forEach(this::put);
+        }
+        return documents.size();
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        if (!ready) {
+            return memoryItem.findByText(text, pageable);
+        }
+        String query = text.toLowerCase(Locale.ROOT);
+        List<Document> namePrefix = new ArrayList<>();
+        List<Document> inName = new ArrayList<>();
+        List<Document> inDescription = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Document document : candidates(query)) {
+                if (!document.available) {
+                    continue;
+                }
+                if (document.name.startsWith(query)) {
+                    namePrefix.add(document);
+                } else if (document.name.contains(query)) {
+                    inName.add(document);
+                } else if (document.description.contains(query)) {
+                    inDescription.add(document);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Document> found = new ArrayList<>(namePrefix.size() + inName.size() + inDescription.size());
+        found.addAll(namePrefix);
+        found.addAll(inName);
+        found.addAll(inDescription);
+        int from = (int) Math.min(pageable.getOffset(), found.size());
+        int to = Math.min(from + pageable.getPageSize(), found.size());
+        List<Item> items = new ArrayList<>(to - from);
+        for (Document document : found.subList(from, to)) {
+            items.add(document.toItem());
+        }
+        return items;
+    }
+
+    @Override
+    public void index(Item item) {
+        Document document = new Document(item);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void remove(int itemId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void put(Item item) {
+        put(new Document(item));
+    }
+
+    private void put(Document document) {
+        delete(document.id);
+        documents.put(document.id, document);
+        for (String gram : grams(document)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(document.id);
+        }
+    }
+
+    private void delete(int itemId) {
+        Document old = documents.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(old)) {
+            PostingList list = postings.get(gram);
+            list.remove(itemId);
+            if (list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Documents that contain every trigram of the query in ascending id order.
+     * Queries shorter than a trigram have no posting list and are checked against every document.
+     */
+    private Iterable<Document> candidates(String query) {
+        if (query.length() < GRAM) {
+            return documents.values();
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams(query, new HashSet<>())) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists.add(list);
+        }
+        lists.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        PostingList smallest = lists.get(0);
+        List<Document> candidates = new ArrayList<>();
+        for (int i = 0; i < smallest.size(); i++) {
+            int id = smallest.get(i);
+            if (containsInAll(lists, id)) {
+                candidates.add(documents.get(id));
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean containsInAll(List<PostingList> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(Document document) {
+        Set<String> grams = new HashSet<>();
+        grams(document.name, grams);
+        grams(document.description, grams);
+        return grams;
+    }
+
+    private static Set<String> grams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Snapshot of the fields needed to answer a search without the database.
+     */
+    private static class Document {
+        private final int id;
+        private final String originalName;
+        private final String originalDescription;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Integer requestId;
+
+        private Document(Item item) {
+            id = item.getId();
+            originalName = item.getName();
+            originalDescription = item.getDescription();
+            name = lower(item.getName());
+            description = lower(item.getDescription());
+            available = Boolean.TRUE.equals(item.getIsAvailable());
+            requestId = item.getRequest() == null ? null : item.getRequest().getId();
+        }
+
+        private Item toItem() {
+            Request request = null;
+            if (requestId != null) {
+                request = new Request();
+                request.setId(requestId);
+            }
+            return new Item(id, originalName, originalDescription, available, null, request);
+        }
+
+        private static String lower(String text) {
+            return text == null ? "" : text.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.item.Item;
+
+import java.util.List;
+
+/**
+ * Full-text lookup for /items/search. Matches the text case-insensitively as a substring of the name or the
+ * description of available items, name prefix matches first, then name matches, then description matches.
+ */
+public interface ItemSearchIndex {
+    List<Item> search(String text, Pageable pageable);
+
+    void index(Item item);
+
+    void remove(int itemId);
+}
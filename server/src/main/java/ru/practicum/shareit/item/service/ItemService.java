@@ -1,19 +1,29 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.batch.BatchResult;
 import ru.practicum.shareit.item.model.comment.CommentDto;
+import ru.practicum.shareit.item.model.item.ItemDetail;
 import ru.practicum.shareit.item.model.item.ItemDto;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto postItem(ItemDto item, int owner);
 
+    BatchResult postItems(int owner, Iterator<ItemDto> items);
+
     CommentDto postComment(int userId, int itemId, CommentDto commentDto);
 
     List<ItemDto> getItems(int owner, int from, int size);
 
+    void exportItems(int owner, Consumer<ItemDto> consumer);
+
     ItemDto getItem(int userId, int itemId);
 
+    ItemDetail getItemDetail(int userId, int itemId);
+
     List<ItemDto> getItem(String text, int from, int size);
 
     ItemDto putItem(int id, ItemDto item, int owner);
@@ -2,35 +2,54 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.batch.BatchResult;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.config.ReplicaLagGuard;
 import ru.practicum.shareit.exception.model.*;
+import ru.practicum.shareit.item.cache.ItemDetailCache;
 import ru.practicum.shareit.item.model.comment.Comment;
 import ru.practicum.shareit.item.model.comment.CommentDto;
 import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDetail;
 import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.item.model.item.ItemMapper;
 import ru.practicum.shareit.item.repository.MemoryComment;
 import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.repository.MemoryRequest;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.MemoryUser;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static ru.practicum.shareit.batch.Batches.nextChunk;
+import static ru.practicum.shareit.booking.model.BookingMapper.bookingToDtoDefault;
 import static ru.practicum.shareit.item.model.comment.CommentMapper.commentFromDto;
 import static ru.practicum.shareit.item.model.comment.CommentMapper.commentToDto;
 import static ru.practicum.shareit.item.model.item.ItemMapper.itemToDto;
+import static ru.practicum.shareit.patch.Patches.blankToNull;
 
 @Slf4j
 @Service
@@ -40,24 +59,68 @@ public class ItemServiceImpl implements ItemService {
 
     private final MemoryItem memoryItem;
     private final MemoryUser memoryUser;
+    private final UserCache userCache;
     private final MemoryBooking memoryBooking;
     private final MemoryComment memoryComment;
     private final MemoryRequest memoryRequest;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingCalendar bookingCalendar;
+    private final ItemDetailCache itemDetailCache;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final EntityManager entityManager;
 
 
     @Override
     public ItemDto postItem(ItemDto itemDto, int userId) {
         log.info("Create new Item: \n{}\nowner: {}", itemDto, userId);
-        User user = memoryUser.findById(userId)
+        User user = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundUserException("Not found userId: " + userId));
         Item item = memoryItem.save(ItemMapper.itemFromDto(itemDto, user, getRequest(itemDto.getRequestId())));
+        itemSearchIndex.index(item);
         return itemToDto(item, null, null, null);
     }
 
+    /**
+     * Inserts the items a chunk at a time. A row with a missing request is rejected, the other rows are inserted.
+     */
+    @Override
+    public BatchResult postItems(int userId, Iterator<ItemDto> rows) {
+        log.info("Create items batch owner: {}", userId);
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundUserException("Not found userId: " + userId);
+        }
+        BatchResult result = new BatchResult();
+        for (List<ItemDto> chunk = nextChunk(rows); !chunk.isEmpty(); chunk = nextChunk(rows)) {
+            User owner = memoryUser.getReferenceById(userId);
+            Map<Integer, Request> requests = getRequests(chunk);
+            Map<Integer, Item> items = new LinkedHashMap<>();
+            for (ItemDto itemDto : chunk) {
+                if (itemDto == null) {
+                    result.skip();
+                    continue;
+                }
+                Integer requestId = itemDto.getRequestId();
+                if (requestId != null && !requests.containsKey(requestId)) {
+                    result.reject("Not found request requestId: " + requestId);
+                    continue;
+                }
+                itemDto.setId(null);
+                items.put(result.accept(), ItemMapper.itemFromDto(itemDto, owner, requests.get(requestId)));
+            }
+            memoryItem.saveAllAndFlush(items.values());
+            items.forEach((index, item) -> {
+                result.setId(index, item.getId());
+                itemSearchIndex.index(item);
+            });
+            entityManager.clear();
+        }
+        return result;
+    }
+
     @Override
     public CommentDto postComment(int userId, int itemId, CommentDto commentDto) {
         log.info("Create comment userId: {} itemId: {} comment:\n{}", userId, itemId, commentDto);
-        User author = memoryUser.findById(userId)
+        User author = userCache.findById(userId)
                 .orElseThrow(() -> new NotFoundUserException("Not found userId: " + userId));
         Item item = memoryItem.findById(itemId)
                 .orElseThrow(() -> new NotFoundItemException("Not found itemId: " + itemId));
@@ -68,6 +131,7 @@ public class ItemServiceImpl implements ItemService {
             throw new BookingTimeException("Error booking");
         }
         Comment comment = memoryComment.save(commentFromDto(commentDto, item, author));
+        itemDetailCache.invalidate(itemId);
         return commentToDto(comment, author.getName());
     }
 
@@ -75,93 +139,164 @@ public class ItemServiceImpl implements ItemService {
     @Transactional(readOnly = true)
     public List<ItemDto> getItems(int userId, int from, int size) {
         log.info("Get list item by userId: {}", userId);
-        if (!memoryUser.existsById(userId)) {
+        if (!userCache.existsById(userId)) {
+            throw new NotFoundUserException("Not found userId: " + userId);
+        }
+        List<ItemDto> items = memoryItem.findDtoByOwnerIdOrderById(userId, getPageable(from, size));
+        List<Integer> itemIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
+        Map<Integer, Booking> lastByItem = new HashMap<>();
+        Map<Integer, Booking> nextByItem = new HashMap<>();
+        fillLastAndNext(itemIds, lastByItem, nextByItem);
+        Map<Integer, List<CommentDto>> commentsByItem = getComments(itemIds);
+        for (ItemDto item : items) {
+            Booking last = lastByItem.get(item.getId());
+            Booking next = nextByItem.get(item.getId());
+            item.setLastBooking(last == null ? null : bookingToDtoDefault(last));
+            item.setNextBooking(next == null ? null : bookingToDtoDefault(next));
+            item.setComments(commentsByItem.getOrDefault(item.getId(), Collections.emptyList()));
+        }
+        return items;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportItems(int userId, Consumer<ItemDto> consumer) {
+        log.info("Export items userId: {}", userId);
+        if (!userCache.existsById(userId)) {
             throw new NotFoundUserException("Not found userId: " + userId);
         }
-        List<Item> itemList = memoryItem.findByOwnerId(userId, getPageable(from, size));
-        List<Integer> itemIds = itemList.stream().map(item -> item.getOwner().getId()).collect(Collectors.toList());
-        List<Booking> bookingList = memoryBooking.findAllByItemOwnerIdInAndStatusNotOrderByStart(itemIds, BookingStatus.REJECTED);
-        Map<Item, List<Booking>> bookingsByItem = bookingList.stream()
-                .collect(Collectors.groupingBy(Booking::getItem));
-        return itemList.stream()
-                .map(item -> {
-                    List<Booking> bookings = bookingsByItem.get(item);
-                    Booking next = findNext(bookings);
-                    Booking last = findLast(bookings);
-                    List<CommentDto> comments = memoryComment.findByItemIdOrderByCreatedDesc(item.getId()).stream()
-                            .map(comment -> commentToDto(comment, comment.getAuthor().getName()))
-                            .collect(Collectors.toList());
-                    return itemToDto(item, last, next, comments);
-                }).collect(Collectors.toList());
+        try (Stream<ItemDto> items = memoryItem.streamByOwnerId(userId)) {
+            items.forEach(consumer);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public ItemDto getItem(int userId, int itemId) {
+        return getItemDetail(userId, itemId).getItem();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ItemDetail getItemDetail(int userId, int itemId) {
         log.info("Get item userId: {} itemId: {}", userId, itemId);
-        Item item = memoryItem.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Not found itemId: " + itemId));
-        Booking last = null;
-        Booking next = null;
-        if (item.getOwner().getId() == userId) {
-            LocalDateTime now = LocalDateTime.now();
-            last = memoryBooking.findFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDesc(itemId, BookingStatus.REJECTED, now);
-            next = memoryBooking.findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(itemId, BookingStatus.REJECTED, now);
+        Integer ownerId = itemDetailCache.getOwner(itemId);
+        if (ownerId == null) {
+            ownerId = findItem(itemId).getOwner().getId();
+            itemDetailCache.putOwner(itemId, ownerId);
         }
-        List<CommentDto> comments = memoryComment.findByItemIdOrderByCreatedDesc(itemId).stream().map(comment -> commentToDto(comment, comment.getAuthor().getName())).collect(Collectors.toList());
-        return itemToDto(item, last, next, comments);
+        boolean viewerIsOwner = ownerId == userId;
+        return itemDetailCache.get(itemId, viewerIsOwner,
+                () -> replicaLagGuard.readPrimary(() -> assembleItem(itemId, viewerIsOwner)));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> getItem(String text, int from, int size) {
         log.info("Get list item by text: {}", text);
         if (text.isBlank()) {
             return Collections.emptyList();
         }
-        return memoryItem.findByText(text, getPageable(from, size)).stream().map(item -> itemToDto(item, null, null, null)).collect(Collectors.toList());
+        return itemSearchIndex.search(text, getPageable(from, size)).stream().map(item -> itemToDto(item, null, null, null)).collect(Collectors.toList());
     }
 
     @Override
     public ItemDto putItem(int itemId, ItemDto itemDto, int userId) {
         log.info("Put item: \n{}\nitemId: {}\nuserId: {}", itemDto, itemId, userId);
-        itemDto.setId(itemId);
-        Item oldItem = memoryItem.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Not found itemId: " + itemId));
-        User owner = oldItem.getOwner();
-        if (owner.getId() != userId) {
-            throw new OwnerItemException("No access userId: " + userId + " itemId: " + itemId);
-        }
-        Item updateItem = ItemMapper.itemFromDto(itemDto, owner, getRequest(itemDto.getRequestId()));
-        String name = updateItem.getName();
-        String description = updateItem.getDescription();
-        if (name == null || name.isBlank()) {
-            updateItem.setName(oldItem.getName());
-        }
-        if (description == null || description.isBlank()) {
-            updateItem.setDescription(oldItem.getDescription());
+        int updated;
+        try {
+            updated = memoryItem.patch(itemId, userId, blankToNull(itemDto.getName()),
+                    blankToNull(itemDto.getDescription()), itemDto.getIsAvailable(), itemDto.getRequestId());
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("Not found request requestId: " + itemDto.getRequestId());
         }
-        if (updateItem.getIsAvailable() == null) {
-            updateItem.setIsAvailable(oldItem.getIsAvailable());
+        if (updated == 0) {
+            if (memoryItem.existsById(itemId)) {
+                throw new OwnerItemException("No access userId: " + userId + " itemId: " + itemId);
+            }
+            throw new NotFoundException("Not found itemId: " + itemId);
         }
-        Item item = memoryItem.save(updateItem);
+        Item item = findItem(itemId);
+        itemSearchIndex.index(item);
+        itemDetailCache.invalidate(itemId);
         return itemToDto(item, null, null, null);
     }
 
     @Override
     public void deleteItem(int userId, int itemId) {
         log.info("Del item itemId: {} userId: {}", itemId, userId);
-        if (!memoryUser.existsById(userId)) {
+        if (!userCache.existsById(userId)) {
             throw new NotFoundUserException("Not found userId: " + userId);
         }
         memoryItem.deleteById(itemId);
+        itemSearchIndex.remove(itemId);
+        itemDetailCache.remove(itemId);
+    }
+
+
+    private Item findItem(int itemId) {
+        return memoryItem.findById(itemId)
+                .orElseThrow(() -> new NotFoundException("Not found itemId: " + itemId));
     }
 
+    private ItemDetail assembleItem(int itemId, boolean viewerIsOwner) {
+        Item item = findItem(itemId);
+        Booking last = null;
+        Booking next = null;
+        if (viewerIsOwner) {
+            LocalDateTime now = LocalDateTime.now();
+            if (bookingCalendar.isReady()) {
+                last = bookingCalendar.last(itemId, now).orElse(null);
+                next = bookingCalendar.next(itemId, now).orElse(null);
+            } else {
+                last = memoryBooking.findFirstByItemIdAndStatusNotAndStartBeforeOrderByStartDesc(itemId, BookingStatus.REJECTED, now);
+                next = memoryBooking.findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(itemId, BookingStatus.REJECTED, now);
+            }
+        }
+        List<Comment> comments = memoryComment.findByItemIdOrderByCreatedDesc(itemId);
+        List<CommentDto> commentDtos = comments.stream().map(comment -> commentToDto(comment, comment.getAuthor().getName())).collect(Collectors.toList());
+        return new ItemDetail(itemToDto(item, last, next, commentDtos), itemEtag(item, viewerIsOwner, last, next, comments));
+    }
+
+    /**
+     * Strong ETag made of the versions of everything the details show. Bookings change only their status and
+     * comments are only added, so the last and next bookings are identified by id and status and the comments
+     * by their count and the sum of the versions of their authors.
+     */
+    private static String itemEtag(Item item, boolean viewerIsOwner, Booking last, Booking next, List<Comment> comments) {
+        StringBuilder etag = new StringBuilder("\"").append(item.getId()).append('-').append(item.getVersion());
+        if (viewerIsOwner) {
+            etag.append("-o").append(bookingEtag(last)).append(bookingEtag(next));
+        }
+        long authorVersions = 0;
+        for (Comment comment : comments) {
+            authorVersions += comment.getAuthor().getVersion();
+        }
+        return etag.append("-c").append(comments.size()).append('.').append(authorVersions).append('"').toString();
+    }
+
+    private static String bookingEtag(Booking booking) {
+        return booking == null ? ".0" : "." + booking.getId() + booking.getStatus().name().charAt(0);
+    }
 
     private Pageable getPageable(int from, int size) {
         int page = from / size;
         return PageRequest.of(page, size);
     }
 
+    private Map<Integer, Request> getRequests(List<ItemDto> items) {
+        Set<Integer> requestIds = items.stream()
+                .filter(Objects::nonNull)
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (requestIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return memoryRequest.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(Request::getId, request -> request));
+    }
+
     private Request getRequest(Integer requestId) {
         Request itemRequest = null;
         if (requestId != null) {
@@ -171,25 +306,35 @@ public class ItemServiceImpl implements ItemService {
         return itemRequest;
     }
 
-    private Booking findLast(List<Booking> bookings) {
-        if (bookings == null) {
-            return null;
+    private Map<Integer, List<CommentDto>> getComments(List<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
         }
-        Booking booking = null;
-        if (bookings.size() > 0) {
-            booking = bookings.get(0);
-        }
-        return booking;
+        return memoryComment.findAllByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(
+                        comment -> comment.getItem().getId(),
+                        Collectors.mapping(comment -> commentToDto(comment, comment.getAuthor().getName()), Collectors.toList())
+                ));
     }
 
-    private Booking findNext(List<Booking> bookings) {
-        if (bookings == null) {
-            return null;
+    private void fillLastAndNext(List<Integer> itemIds, Map<Integer, Booking> lastByItem, Map<Integer, Booking> nextByItem) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (bookingCalendar.isReady()) {
+            for (Integer itemId : itemIds) {
+                bookingCalendar.last(itemId, now).ifPresent(booking -> lastByItem.put(itemId, booking));
+                bookingCalendar.next(itemId, now).ifPresent(booking -> nextByItem.put(itemId, booking));
+            }
+            return;
         }
-        Booking booking = null;
-        if (bookings.size() > 1) {
-            booking = bookings.get(1);
+        for (Booking booking : memoryBooking.findLastAndNextByItemIdIn(itemIds, now)) {
+            if (booking.getStart().isBefore(now)) {
+                lastByItem.put(booking.getItem().getId(), booking);
+            } else {
+                nextByItem.put(booking.getItem().getId(), booking);
+            }
         }
-        return booking;
     }
 }
\ No newline at end of file
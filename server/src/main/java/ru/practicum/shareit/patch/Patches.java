@@ -0,0 +1,11 @@
+package ru.practicum.shareit.patch;
+
+public class Patches {
+    /**
+     * The value of a PATCH field to set, null when it is to be kept. A blank string keeps the field like a missing one,
+     * a name or an email is never set blank.
+     */
+    public static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request joined with one of its items, the item columns are null for a request without items.
+ */
+public interface RequestItemRow {
+    Integer getId();
+
+    String getDescription();
+
+    LocalDateTime getCreated();
+
+    Integer getItemId();
+
+    String getItemName();
+
+    String getItemDescription();
+
+    Boolean getItemAvailable();
+}
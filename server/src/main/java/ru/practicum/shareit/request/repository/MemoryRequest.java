@@ -1,14 +1,31 @@
 package ru.practicum.shareit.request.repository;
 
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.model.RequestItemRow;
 
 import java.util.List;
 
 public interface MemoryRequest extends JpaRepository<Request, Integer> {
-    List<Request> findByRequestorIdOrderByCreatedDesc(int userId);
+    /*
+     * Requests are read with their items in one select, a row per item and a single row with null item columns
+     * for a request without items. Requests are newest first, ties broken by id, so a page boundary is stable.
+     * Paging applies to the requests, not to the joined rows, so it is done in a derived table. Aliases are quoted
+     * to keep the case of the RequestItemRow properties on every database.
+     */
+    String SELECT_WITH_ITEMS = "select r.id as \"id\", r.description as \"description\", r.created as \"created\", " +
+            "i.id as \"itemId\", i.name as \"itemName\", i.description as \"itemDescription\", " +
+            "i.is_available as \"itemAvailable\" from ";
+    String JOIN_ITEMS = " as r left join items as i on i.request_id = r.id ";
+    String NEWEST_FIRST = "order by r.created desc, r.id desc, i.id";
 
-    List<Request> findByRequestorIdNotOrderByCreatedDesc(int userId, Pageable pageable);
-}
\ No newline at end of file
+    @Query(value = SELECT_WITH_ITEMS + "item_requests" + JOIN_ITEMS + "where r.requestor_id = ?1 " + NEWEST_FIRST,
+            nativeQuery = true)
+    List<RequestItemRow> findWithItemsByRequestorId(int userId);
+
+    @Query(value = SELECT_WITH_ITEMS + "(select * from item_requests where requestor_id <> ?1 " +
+            "order by created desc, id desc limit ?3 offset ?2)" + JOIN_ITEMS + NEWEST_FIRST, nativeQuery = true)
+    List<RequestItemRow> findWithItemsByRequestorIdNot(int userId, long offset, int size);
+}
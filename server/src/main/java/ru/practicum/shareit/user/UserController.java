@@ -1,10 +1,15 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.batch.BatchResult;
+import ru.practicum.shareit.batch.JsonArrayIterator;
 import ru.practicum.shareit.user.model.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -16,12 +21,21 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public UserDto postUser(@RequestBody UserDto user) {
         return userService.postUser(user);
     }
 
+    /**
+     * Reads the JSON array of users one element at a time while they are inserted.
+     */
+    @PostMapping("/batch")
+    public BatchResult postUsers(InputStream body) throws IOException {
+        return userService.postUsers(new JsonArrayIterator<>(objectMapper, body, UserDto.class));
+    }
+
     @GetMapping
     public List<UserDto> getUsers() {
         return userService.getUsers();
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.user.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserSnapshot;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import java.util.Optional;
+
+/**
+ * Users and their existence by id, kept in the {@value #USERS_CACHE} and {@value #USER_EXISTS_CACHE} caches.
+ * Misses are not cached, so a new user is visible right away. Changes of a user must evict both caches after commit,
+ * see {@code UserServiceImpl}. Loading holds the entry, so such an eviction waits for a load in progress and removes
+ * what it loaded, a read that started before the change commits never puts the old user back. Loads read from
+ * the primary, a user loaded from a lagging replica would be cached as it was before the change.
+ */
+@Component
+public class UserCache {
+    public static final String USERS_CACHE = "users";
+    public static final String USER_EXISTS_CACHE = "userExists";
+
+    private final MemoryUser memoryUser;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final Cache<Object, Object> users;
+    private final Cache<Object, Object> existing;
+
+    public UserCache(MemoryUser memoryUser, ReplicaLagGuard replicaLagGuard, CacheManager cacheManager) {
+        this.memoryUser = memoryUser;
+        this.replicaLagGuard = replicaLagGuard;
+        users = nativeCache(cacheManager, USERS_CACHE);
+        existing = nativeCache(cacheManager, USER_EXISTS_CACHE);
+    }
+
+    public Optional<User> findById(int userId) {
+        UserSnapshot user = (UserSnapshot) users.get(userId, id ->
+                replicaLagGuard.readPrimary(() -> memoryUser.findSnapshotById(userId)).orElse(null));
+        return Optional.ofNullable(user).map(UserSnapshot::toUser);
+    }
+
+    public boolean existsById(int userId) {
+        return existing.get(userId, id ->
+                replicaLagGuard.readPrimary(() -> memoryUser.existsById(userId)) ? Boolean.TRUE : null) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache is not configured: " + name);
+        }
+        return (Cache<Object, Object>) cache.getNativeCache();
+    }
+}
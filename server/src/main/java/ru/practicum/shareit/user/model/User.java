@@ -9,19 +9,33 @@ import javax.persistence.*;
  */
 
 @NoArgsConstructor
-@AllArgsConstructor
 @Getter
 @Setter
 @ToString
-@Builder
 @Table(name = "users")
 @Entity
 public class User {
+    /**
+     * Allocated fifty at a time from users_seq. Hibernate cannot batch inserts into an identity column.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Integer id;
     @Column(length = 60)
     private String name;
     @Column(length = 60, unique = true)
     private String email;
+    /**
+     * Incremented by every update, an update of a user changed meanwhile fails.
+     */
+    @Version
+    private long version;
+
+    @Builder
+    public User(Integer id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.user.model;
+
+import lombok.Value;
+
+/**
+ * An immutable copy of a user as it was read, safe to share between threads and transactions.
+ */
+@Value
+public class UserSnapshot {
+    Integer id;
+    String name;
+    String email;
+    long version;
+
+    /**
+     * A new detached user for every call, so a caller that changes it does not change the snapshot.
+     */
+    public User toUser() {
+        User user = new User(id, name, email);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -1,7 +1,22 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserSnapshot;
 
-public interface MemoryUser extends JpaRepository<User, Integer> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lookups by id go through {@code UserCache}.
+ */
+public interface MemoryUser extends JpaRepository<User, Integer>, MemoryUserPatch {
+    @Query("select new ru.practicum.shareit.user.model.UserSnapshot(u.id, u.name, u.email, u.version) "
+            + "from User as u where u.id = ?1")
+    Optional<UserSnapshot> findSnapshotById(int id);
+
+    @Query("select u.email from User as u where u.email in ?1")
+    List<String> findTakenEmails(Collection<String> emails);
 }
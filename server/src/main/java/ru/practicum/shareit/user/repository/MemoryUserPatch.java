@@ -0,0 +1,13 @@
+package ru.practicum.shareit.user.repository;
+
+/**
+ * Partial update of a user with one UPDATE and without reading the user first.
+ */
+public interface MemoryUserPatch {
+    /**
+     * Writes only the non-null fields and increments the version of the user.
+     *
+     * @return the number of updated rows, 0 when there is no such user
+     */
+    int patch(int userId, String name, String email);
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.user.repository;
+
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+
+@RequiredArgsConstructor
+public class MemoryUserPatchImpl implements MemoryUserPatch {
+    private final EntityManager entityManager;
+
+    @Override
+    public int patch(int userId, String name, String email) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        if (name != null) {
+            update.set(user.<String>get("name"), name);
+        }
+        if (email != null) {
+            update.set(user.<String>get("email"), email);
+        }
+        update.set(user.<Long>get("version"), builder.sum(user.<Long>get("version"), 1L));
+        update.where(builder.equal(user.get("id"), userId));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
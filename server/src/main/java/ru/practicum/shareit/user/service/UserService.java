@@ -1,12 +1,16 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.batch.BatchResult;
 import ru.practicum.shareit.user.model.UserDto;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface UserService {
     UserDto postUser(UserDto user);
 
+    BatchResult postUsers(Iterator<UserDto> users);
+
     List<UserDto> getUsers();
 
     UserDto getUser(int id);
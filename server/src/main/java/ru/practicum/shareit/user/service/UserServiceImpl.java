@@ -2,19 +2,33 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.batch.BatchResult;
 import ru.practicum.shareit.exception.model.NotFoundException;
 import ru.practicum.shareit.exception.model.ReplayException;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserDto;
 import ru.practicum.shareit.user.model.UserMapper;
 import ru.practicum.shareit.user.repository.MemoryUser;
 
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.batch.Batches.nextChunk;
+import static ru.practicum.shareit.patch.Patches.blankToNull;
 import static ru.practicum.shareit.user.model.UserMapper.userToDto;
 
 @Slf4j
@@ -23,6 +37,8 @@ import static ru.practicum.shareit.user.model.UserMapper.userToDto;
 @Transactional
 public class UserServiceImpl implements UserService {
     private final MemoryUser memoryUser;
+    private final UserCache userCache;
+    private final EntityManager entityManager;
 
     @Override
     public UserDto postUser(UserDto userDto) {
@@ -35,6 +51,41 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * Inserts the users a chunk at a time. A row with an email that is taken, also by an earlier row of the batch,
+     * is rejected, the other rows are inserted.
+     */
+    @Override
+    public BatchResult postUsers(Iterator<UserDto> rows) {
+        log.info("Create users batch");
+        BatchResult result = new BatchResult();
+        Set<String> emails = new HashSet<>();
+        for (List<UserDto> chunk = nextChunk(rows); !chunk.isEmpty(); chunk = nextChunk(rows)) {
+            Set<String> taken = getTakenEmails(chunk);
+            Map<Integer, User> users = new LinkedHashMap<>();
+            for (UserDto userDto : chunk) {
+                if (userDto == null) {
+                    result.skip();
+                    continue;
+                }
+                if (taken.contains(userDto.getEmail()) || !emails.add(userDto.getEmail())) {
+                    result.reject("The userEmail already exists");
+                    continue;
+                }
+                userDto.setId(null);
+                users.put(result.accept(), UserMapper.dtoToUser(userDto));
+            }
+            try {
+                memoryUser.saveAllAndFlush(users.values());
+            } catch (DataIntegrityViolationException e) {
+                throw new ReplayException("The userEmail already exists");
+            }
+            users.forEach((index, user) -> result.setId(index, user.getId()));
+            entityManager.clear();
+        }
+        return result;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<UserDto> getUsers() {
@@ -46,37 +97,49 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     public UserDto getUser(int id) {
         log.info("Get userId: {}", id);
-        User user = memoryUser.findById(id)
+        User user = userCache.findById(id)
                 .orElseThrow(() -> new NotFoundException("Not found user id: " + id));
         return UserMapper.userToDto(user);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = UserCache.USERS_CACHE, key = "#userId"),
+            @CacheEvict(cacheNames = UserCache.USER_EXISTS_CACHE, key = "#userId")
+    })
     public UserDto putUser(int userId, UserDto userDto) {
         log.info("Put User userId: {}, user: ", userId, userDto);
-        userDto.setId(userId);
-        User oldUser = memoryUser.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Not found user id: " + userId));
-        User updateUser = UserMapper.dtoToUser(userDto);
+        int updated;
         try {
-            String email = updateUser.getEmail();
-            String name = updateUser.getName();
-            if (email == null || email.isBlank()) {
-                updateUser.setEmail(oldUser.getEmail());
-            }
-            if (name == null || name.isBlank()) {
-                updateUser.setName(oldUser.getName());
-            }
-            User user = memoryUser.save(updateUser);
-            return userToDto(user);
+            updated = memoryUser.patch(userId, blankToNull(userDto.getName()), blankToNull(userDto.getEmail()));
         } catch (DataIntegrityViolationException e) {
             throw new ReplayException("The userEmail already exists");
         }
+        if (updated == 0) {
+            throw new NotFoundException("Not found user id: " + userId);
+        }
+        // a reference instead of the cached findById, the cache still holds the user as it was before the update
+        return userToDto(memoryUser.getReferenceById(userId));
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = UserCache.USERS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = UserCache.USER_EXISTS_CACHE, key = "#id")
+    })
     public void delUser(int id) {
         log.info("Delete userId: {}", id);
         memoryUser.deleteById(id);
     }
+
+    private Set<String> getTakenEmails(List<UserDto> users) {
+        Set<String> emails = users.stream()
+                .filter(Objects::nonNull)
+                .map(UserDto::getEmail)
+                .collect(Collectors.toSet());
+        if (emails.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(memoryUser.findTakenEmails(emails));
+    }
 }
@@ -1,17 +1,11 @@
-DROP TABLE IF EXISTS comments CASCADE;
-DROP TABLE IF EXISTS bookings CASCADE;
-DROP TABLE IF EXISTS items CASCADE;
-DROP TABLE IF EXISTS item_requests CASCADE;
-DROP TABLE IF EXISTS users CASCADE;
-
-CREATE TABLE IF NOT EXISTS users (
+CREATE TABLE users (
   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   name VARCHAR(60) NOT NULL,
   email VARCHAR(60) NOT NULL,
   CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
-CREATE TABLE IF NOT EXISTS item_requests (
+CREATE TABLE item_requests (
   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   description VARCHAR(2000) NOT NULL,
   requestor_id INTEGER NOT NULL,
@@ -19,7 +13,7 @@ CREATE TABLE IF NOT EXISTS item_requests (
   CONSTRAINT fk_item_requests_to_users FOREIGN KEY(requestor_id) REFERENCES users(id)
 );
 
-CREATE TABLE IF NOT EXISTS items (
+CREATE TABLE items (
   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   name VARCHAR(60) NOT NULL,
   description VARCHAR(500) NOT NULL,
@@ -30,7 +24,7 @@ CREATE TABLE IF NOT EXISTS items (
   CONSTRAINT fk_items_to_item_requests FOREIGN KEY(request_id) REFERENCES item_requests(id)
 );
 
-CREATE TABLE IF NOT EXISTS bookings (
+CREATE TABLE bookings (
   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   start_time TIMESTAMP NOT NULL,
   end_time TIMESTAMP NOT NULL,
@@ -41,7 +35,7 @@ CREATE TABLE IF NOT EXISTS bookings (
   CONSTRAINT fk_bookings_to_items FOREIGN KEY(item_id) REFERENCES items(id)
 );
 
-CREATE TABLE IF NOT EXISTS comments (
+CREATE TABLE comments (
   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   text VARCHAR(500) NOT NULL,
   item_id INTEGER NOT NULL,
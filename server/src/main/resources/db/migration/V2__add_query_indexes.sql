@@ -0,0 +1,12 @@
+CREATE INDEX ix_items_owner ON items (owner, id);
+CREATE INDEX ix_items_request ON items (request_id);
+
+CREATE INDEX ix_item_requests_requestor_created ON item_requests (requestor_id, created DESC);
+
+CREATE INDEX ix_bookings_booker_start ON bookings (booker_id, start_time DESC);
+CREATE INDEX ix_bookings_booker_status_start ON bookings (booker_id, status, start_time DESC);
+CREATE INDEX ix_bookings_booker_item ON bookings (booker_id, item_id);
+CREATE INDEX ix_bookings_item_start ON bookings (item_id, start_time DESC);
+CREATE INDEX ix_bookings_item_status_start ON bookings (item_id, status, start_time);
+
+CREATE INDEX ix_comments_item_created ON comments (item_id, created DESC);
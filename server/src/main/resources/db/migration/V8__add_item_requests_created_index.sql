@@ -0,0 +1 @@
+CREATE INDEX ix_item_requests_created ON item_requests (created DESC, id DESC);
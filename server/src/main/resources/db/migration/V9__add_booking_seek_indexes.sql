@@ -0,0 +1,12 @@
+ALTER TABLE bookings ADD COLUMN item_owner_id INTEGER;
+UPDATE bookings SET item_owner_id = (SELECT i.owner FROM items AS i WHERE i.id = bookings.item_id);
+ALTER TABLE bookings ALTER COLUMN item_owner_id SET NOT NULL;
+ALTER TABLE bookings ADD CONSTRAINT fk_bookings_to_item_owners FOREIGN KEY (item_owner_id) REFERENCES users(id);
+
+DROP INDEX ix_bookings_booker_start;
+DROP INDEX ix_bookings_booker_status_start;
+
+CREATE INDEX ix_bookings_booker_start_id ON bookings (booker_id, start_time DESC, id DESC);
+CREATE INDEX ix_bookings_booker_status_start_id ON bookings (booker_id, status, start_time DESC, id DESC);
+CREATE INDEX ix_bookings_owner_start_id ON bookings (item_owner_id, start_time DESC, id DESC);
+CREATE INDEX ix_bookings_owner_status_start_id ON bookings (item_owner_id, status, start_time DESC, id DESC);
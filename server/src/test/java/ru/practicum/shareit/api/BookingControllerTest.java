@@ -7,13 +7,18 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.config.ConditionalGetConfig;
+import ru.practicum.shareit.exception.model.NotFoundException;
 import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.user.model.UserDto;
 
@@ -22,13 +27,19 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(ConditionalGetConfig.class)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class BookingControllerTest {
     @MockBean
@@ -126,7 +137,7 @@ public class BookingControllerTest {
     @Test
     public void shouldGetUserBookings() throws Exception {
         Mockito
-                .when(bookingService.getUserBookings(anyInt(), anyString(), anyInt(), anyInt()))
+                .when(bookingService.getUserBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(List.of(bookingDtoOutgoing));
 
         mvc.perform(get("/bookings")
@@ -143,10 +154,42 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.[0].booker.id").value(bookingDtoOutgoing.getBooker().getId()));
     }
 
+    @Test
+    public void shouldReturnNextCursorWhenPageIsFull() throws Exception {
+        Mockito
+                .when(bookingService.getUserBookings(1, "ALL", 0, 1, null))
+                .thenReturn(List.of(bookingDtoOutgoing));
+
+        mvc.perform(get("/bookings")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER,
+                        BookingCursor.after(bookingDtoOutgoing).encode()));
+    }
+
+    @Test
+    public void shouldNotReturnNextCursorOnLastPage() throws Exception {
+        String cursor = BookingCursor.after(bookingDtoOutgoing).encode();
+        Mockito
+                .when(bookingService.getOwnerBookings(1, "ALL", 0, 10, cursor))
+                .thenReturn(List.of(bookingDtoOutgoing));
+
+        mvc.perform(get("/bookings/owner")
+                        .param("cursor", cursor)
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_CURSOR_HEADER));
+    }
+
     @Test
     public void shouldGetOwnerBookings() throws Exception {
         Mockito
-                .when(bookingService.getOwnerBookings(anyInt(), anyString(), anyInt(), anyInt()))
+                .when(bookingService.getOwnerBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(List.of(bookingDtoOutgoing));
 
         mvc.perform(get("/bookings/owner")
@@ -162,4 +205,63 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.[0].item.id").value(bookingDtoOutgoing.getItem().getId()))
                 .andExpect(jsonPath("$.[0].booker.id").value(bookingDtoOutgoing.getBooker().getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotSendUnchangedBookingList() throws Exception {
+        Mockito
+                .when(bookingService.getOwnerBookings(anyInt(), anyString(), anyInt(), anyInt(), any()))
+                .thenReturn(List.of(bookingDtoOutgoing));
+
+        MvcResult first = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("If-None-Match", etag)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldExportOwnerBookingsAsNdjson() throws Exception {
+        Mockito
+                .doAnswer(invocation -> {
+                    Consumer<BookingDtoOutgoing> consumer = invocation.getArgument(1);
+                    consumer.accept(bookingDtoOutgoing);
+                    consumer.accept(bookingDtoOutgoing);
+                    return null;
+                })
+                .when(bookingService).exportOwnerBookings(eq(1), any());
+
+        String body = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String line = mapper.writeValueAsString(bookingDtoOutgoing);
+        assertThat(body, equalTo(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    public void shouldNotExportOwnerBookingsWhenUserNotFound() throws Exception {
+        Mockito
+                .doThrow(new NotFoundException("Not found userId: 1"))
+                .when(bookingService).exportOwnerBookings(eq(1), any());
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+}
@@ -9,19 +9,30 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.batch.BatchResult;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.model.comment.CommentDto;
+import ru.practicum.shareit.item.model.item.ItemDetail;
 import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -47,19 +58,36 @@ public class ItemControllerTest {
     @Test
     public void shouldGetItemById() throws Exception {
         Mockito
-                .when(itemService.getItem(anyInt(), anyInt()))
-                .thenReturn(itemDto);
+                .when(itemService.getItemDetail(anyInt(), anyInt()))
+                .thenReturn(new ItemDetail(itemDto, "\"1-a-1\""));
 
         mvc.perform(get("/items/1")
                         .header("X-Sharer-User-Id", 1)
                         .characterEncoding(StandardCharsets.UTF_8)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-a-1\""))
                 .andExpect(jsonPath("$.id").value(itemDto.getId()))
                 .andExpect(jsonPath("$.name").value(itemDto.getName()))
                 .andExpect(jsonPath("$.description").value(itemDto.getDescription()));
     }
 
+    @Test
+    public void shouldNotSendUnchangedItem() throws Exception {
+        Mockito
+                .when(itemService.getItemDetail(anyInt(), anyInt()))
+                .thenReturn(new ItemDetail(itemDto, "\"1-a-1\""));
+
+        mvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 1)
+                        .header("If-None-Match", "\"1-a-1\"")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-a-1\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void shouldGetItemsByUserId() throws Exception {
         Mockito
@@ -95,6 +123,33 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.description").value(itemDto.getDescription()));
     }
 
+    @Test
+    public void shouldPostItemsOneByOne() throws Exception {
+        List<ItemDto> received = new ArrayList<>();
+        Mockito
+                .when(itemService.postItems(anyInt(), any()))
+                .then(invocation -> {
+                    Iterator<ItemDto> rows = invocation.getArgument(1);
+                    rows.forEachRemaining(received::add);
+                    return new BatchResult(Arrays.asList(1, null), new ArrayList<>());
+                });
+
+        mvc.perform(post("/items/batch")
+                        .content("[" + mapper.writeValueAsString(itemDto) + ",null]")
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(1))
+                .andExpect(jsonPath("$.ids[1]").isEmpty())
+                .andExpect(jsonPath("$.errors").isEmpty());
+
+        assertThat(received.size(), equalTo(2));
+        assertThat(received.get(0).getName(), equalTo(itemDto.getName()));
+        assertThat(received.get(1), nullValue());
+    }
+
     @Test
     public void shouldUpdateItem() throws Exception {
         Mockito
@@ -165,4 +220,24 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.authorName").value(commentDto.getAuthorName()))
                 .andExpect(jsonPath("$.created").value(commentDto.getCreated().toString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldExportItemsAsNdjson() throws Exception {
+        Mockito
+                .doAnswer(invocation -> {
+                    Consumer<ItemDto> consumer = invocation.getArgument(1);
+                    consumer.accept(itemDto);
+                    return null;
+                })
+                .when(itemService).exportItems(eq(1), any());
+
+        String body = mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body, equalTo(mapper.writeValueAsString(itemDto) + "\n"));
+    }
+}
@@ -9,13 +9,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.batch.BatchError;
+import ru.practicum.shareit.batch.BatchResult;
 import ru.practicum.shareit.user.UserController;
 import ru.practicum.shareit.user.model.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -81,6 +88,31 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.email").value(userDto.getEmail()));
     }
 
+    @Test
+    public void shouldPostUsersOneByOne() throws Exception {
+        List<UserDto> received = new ArrayList<>();
+        Mockito
+                .when(userService.postUsers(any()))
+                .then(invocation -> {
+                    Iterator<UserDto> rows = invocation.getArgument(0);
+                    rows.forEachRemaining(received::add);
+                    return new BatchResult(Arrays.asList(1, null),
+                            List.of(new BatchError(1, "The userEmail already exists")));
+                });
+
+        mvc.perform(post("/users/batch")
+                        .content(mapper.writeValueAsString(List.of(userDto, userDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].error").value("The userEmail already exists"));
+
+        assertThat(received, equalTo(List.of(userDto, userDto)));
+    }
+
     @Test
     public void shouldPutUser() throws Exception {
         Mockito
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.exception;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 import ru.practicum.shareit.exception.model.ErrorResponse;
 import ru.practicum.shareit.exception.model.ReplayException;
 
@@ -25,6 +26,12 @@ class ErrorHandlerTest {
         assertThat(new ErrorResponse("e").getError(), equalTo(errorHandler.handlerReplayException(new ReplayException("e")).getError()));
     }
 
+    @Test
+    void handlerOptimisticLockingFailureException() {
+        assertThat(errorHandler.handlerOptimisticLockingFailureException(new OptimisticLockingFailureException("e")).getError(),
+                equalTo("Changed by another request"));
+    }
+
     @Test
     void handleOwnerItemException() {
         assertThat(new ErrorResponse("e").getError(), equalTo(errorHandler.handleOwnerItemException(new RuntimeException("e")).getError()));
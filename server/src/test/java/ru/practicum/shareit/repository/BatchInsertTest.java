@@ -0,0 +1,119 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.batch.BatchResult;
+import ru.practicum.shareit.item.model.item.ItemDto;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDto;
+import ru.practicum.shareit.user.repository.MemoryUser;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BatchInsertTest {
+    private static final int ROWS = 1200;
+
+    private final ItemService itemService;
+    private final UserService userService;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+    private final UserCache userCache;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+
+    @BeforeEach
+    public void setUp() {
+        owner = memoryUser.save(new User(null, "owner", "batch-owner@email.com"));
+        userCache.existsById(owner.getId());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        memoryItem.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldInsertItemsInJdbcBatches() {
+        List<ItemDto> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new ItemDto(null, "item" + i, "description" + i, true, null, null, null, null));
+        }
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        BatchResult result = itemService.postItems(owner.getId(), rows.iterator());
+
+        assertThat(statistics.getEntityInsertCount(), equalTo((long) ROWS));
+        assertThat(statistics.getPrepareStatementCount(), lessThan((long) ROWS / 10));
+        assertThat(result.getIds().size(), equalTo(ROWS));
+        assertThat(result.getErrors().size(), equalTo(0));
+        assertThat(memoryItem.count(), equalTo((long) ROWS));
+        assertThat(memoryItem.findById(result.getIds().get(ROWS - 1)).orElseThrow().getName(), equalTo("item" + (ROWS - 1)));
+    }
+
+    @Test
+    public void shouldReportItemsWithMissingRequest() {
+        List<ItemDto> rows = Arrays.asList(
+                new ItemDto(null, "first", "description", true, null, null, null, null),
+                new ItemDto(null, "second", "description", true, 1000, null, null, null),
+                null,
+                new ItemDto(null, "fourth", "description", true, null, null, null, null)
+        );
+
+        BatchResult result = itemService.postItems(owner.getId(), rows.iterator());
+
+        assertThat(result.getIds().get(0), notNullValue());
+        assertThat(result.getIds().get(1), nullValue());
+        assertThat(result.getIds().get(2), nullValue());
+        assertThat(result.getIds().get(3), notNullValue());
+        assertThat(result.getErrors().size(), equalTo(1));
+        assertThat(result.getErrors().get(0).getIndex(), equalTo(1));
+        assertThat(result.getErrors().get(0).getError(), equalTo("Not found request requestId: 1000"));
+        assertThat(memoryItem.count(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldReportUsersWithTakenEmail() {
+        List<UserDto> rows = List.of(
+                new UserDto(null, "first", "batch-first@email.com"),
+                new UserDto(null, "owner", "batch-owner@email.com"),
+                new UserDto(null, "again", "batch-first@email.com")
+        );
+
+        BatchResult result = userService.postUsers(rows.iterator());
+
+        assertThat(result.getIds().get(0), notNullValue());
+        assertThat(result.getErrors().size(), equalTo(2));
+        assertThat(result.getErrors().get(0).getIndex(), equalTo(1));
+        assertThat(result.getErrors().get(1).getIndex(), equalTo(2));
+        assertThat(result.getErrors().get(1).getError(), equalTo("The userEmail already exists"));
+        assertThat(memoryUser.count(), equalTo(2L));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.BookingDtoDefault;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.model.BookingTimeException;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingConcurrencyTest {
+    private static final int BOOKERS = 8;
+
+    private final BookingService bookingService;
+    private final MemoryBooking memoryBooking;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+
+    @AfterEach
+    public void tearDown() {
+        memoryBooking.deleteAll();
+        memoryItem.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldAcceptOnlyOneOfParallelBookingsForSameTime() throws Exception {
+        User owner = memoryUser.save(new User(null, "owner", "concurrency-owner@email.com"));
+        Item item = memoryItem.save(new Item(null, "item", "item description", true, owner, null));
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookers.add(memoryUser.save(new User(null, "booker" + i, "concurrency-booker" + i + "@email.com")));
+        }
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        CountDownLatch ready = new CountDownLatch(BOOKERS);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKERS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            User booker = bookers.get(i);
+            LocalDateTime bookingStart = start.plusMinutes(i);
+            results.add(executor.submit(() -> {
+                ready.countDown();
+                go.await();
+                return bookingService.postBooking(
+                        new BookingDtoDefault(null, bookingStart, bookingStart.plusHours(2), item.getId(), null, null),
+                        booker.getId()
+                );
+            }));
+        }
+        ready.await();
+        go.countDown();
+
+        int accepted = 0;
+        int rejected = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                accepted++;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof BookingTimeException)) {
+                    throw e;
+                }
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(accepted, equalTo(1));
+        assertThat(rejected, equalTo(BOOKERS - 1));
+        assertThat(memoryBooking.count(), equalTo(1L));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Checks the exclusion constraint that keeps WAITING and APPROVED bookings of an item from overlapping.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingConstraintTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("insert into users (id, name, email) values (1, 'owner', 'owner@email.com')");
+        jdbcTemplate.update("insert into users (id, name, email) values (2, 'booker', 'booker@email.com')");
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner) " +
+                "values (1, 'item', 'description', true, 1)");
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner) " +
+                "values (2, 'item', 'description', true, 1)");
+        insert(1, START, START.plusHours(4), "APPROVED");
+    }
+
+    @Test
+    public void shouldRejectOverlappingBooking() {
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> insert(1, START.plusHours(1), START.plusHours(2), "WAITING"));
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> insert(1, START.minusHours(1), START.plusHours(5), "APPROVED"));
+    }
+
+    @Test
+    public void shouldAcceptNotOverlappingBooking() {
+        insert(1, START.plusHours(4), START.plusHours(6), "WAITING");
+        insert(1, START.plusHours(1), START.plusHours(2), "REJECTED");
+        insert(1, START.plusHours(1), START.plusHours(2), "CANCELED");
+        insert(2, START, START.plusHours(4), "APPROVED");
+    }
+
+    private void insert(int itemId, LocalDateTime start, LocalDateTime end, String status) {
+        jdbcTemplate.update("insert into bookings (start_time, end_time, item_id, booker_id, status, item_owner_id) " +
+                "values (?, ?, ?, 2, ?, 1)", Timestamp.valueOf(start), Timestamp.valueOf(end), itemId, status);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.booking.repository.OffsetPageRequest;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+@DataJpaTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingStorageTest {
+    private final MemoryBooking memoryBooking;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+    private final TestEntityManager entityManager;
+
+    @Test
+    public void shouldFindLastAndNextBookingPerItem() {
+        User owner = memoryUser.save(new User(null, "owner", "owner@email.com"));
+        User booker = memoryUser.save(new User(null, "booker", "booker@email.com"));
+        Item first = memoryItem.save(new Item(null, "first", "first item", true, owner, null));
+        Item second = memoryItem.save(new Item(null, "second", "second item", true, owner, null));
+        Item withoutBookings = memoryItem.save(new Item(null, "third", "third item", true, owner, null));
+        LocalDateTime now = LocalDateTime.now();
+
+        save(first, booker, now.minusDays(5), BookingStatus.APPROVED);
+        Booking firstLast = save(first, booker, now.minusDays(3), BookingStatus.APPROVED);
+        save(first, booker, now.minusDays(1), BookingStatus.REJECTED);
+        Booking firstNext = save(first, booker, now.plusDays(1), BookingStatus.WAITING);
+        save(first, booker, now.plusDays(3), BookingStatus.APPROVED);
+        Booking secondNext = save(second, booker, now.plusDays(2), BookingStatus.APPROVED);
+        save(second, booker, now.plusDays(4), BookingStatus.APPROVED);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Booking> bookings = memoryBooking.findLastAndNextByItemIdIn(
+                List.of(first.getId(), second.getId(), withoutBookings.getId()), now);
+        Map<Integer, Booking> byId = bookings.stream().collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        assertThat(bookings.size(), equalTo(3));
+        assertThat(byId.keySet(), containsInAnyOrder(firstLast.getId(), firstNext.getId(), secondNext.getId()));
+        assertThat(byId.get(firstLast.getId()).getItem().getId(), equalTo(first.getId()));
+        assertThat(byId.get(secondNext.getId()).getItem().getId(), equalTo(second.getId()));
+    }
+
+    @Test
+    public void shouldSeekBookerBookingsAfterCursor() {
+        User owner = memoryUser.save(new User(null, "owner", "owner@email.com"));
+        User booker = memoryUser.save(new User(null, "booker", "booker@email.com"));
+        Item item = memoryItem.save(new Item(null, "item", "item description", true, owner, null));
+        LocalDateTime start = LocalDateTime.of(2023, 1, 10, 12, 0);
+        Booking oldest = save(item, booker, start.minusDays(1), BookingStatus.APPROVED);
+        Booking sameStartFirst = save(item, booker, start, BookingStatus.APPROVED);
+        Booking sameStartSecond = save(item, booker, start, BookingStatus.WAITING);
+        Booking newest = save(item, booker, start.plusDays(1), BookingStatus.APPROVED);
+
+        List<BookingDtoOutgoing> firstPage = memoryBooking.findByBookerIdAfter(booker.getId(),
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), new OffsetPageRequest(0, 2));
+        BookingDtoOutgoing last = firstPage.get(1);
+        List<BookingDtoOutgoing> secondPage = memoryBooking.findByBookerIdAfter(booker.getId(),
+                last.getStart(), last.getId(), new OffsetPageRequest(0, 2));
+        List<BookingDtoOutgoing> fromOffset = memoryBooking.findByBookerIdAfter(booker.getId(),
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), new OffsetPageRequest(1, 2));
+
+        assertThat(ids(firstPage), contains(newest.getId(), sameStartSecond.getId()));
+        assertThat(ids(secondPage), contains(sameStartFirst.getId(), oldest.getId()));
+        assertThat(ids(fromOffset), contains(sameStartSecond.getId(), sameStartFirst.getId()));
+        assertThat(last.getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(last.getItem().getName(), equalTo("item"));
+        assertThat(last.getItem().getIsAvailable(), equalTo(true));
+        assertThat(last.getBooker().getEmail(), equalTo("booker@email.com"));
+    }
+
+    @Test
+    public void shouldStreamOwnerBookingsNewestFirst() {
+        User owner = memoryUser.save(new User(null, "owner", "owner@email.com"));
+        User other = memoryUser.save(new User(null, "other", "other@email.com"));
+        User booker = memoryUser.save(new User(null, "booker", "booker@email.com"));
+        Item first = memoryItem.save(new Item(null, "first", "first item", true, owner, null));
+        Item second = memoryItem.save(new Item(null, "second", "second item", true, owner, null));
+        Item notOwned = memoryItem.save(new Item(null, "other", "other item", true, other, null));
+        LocalDateTime start = LocalDateTime.of(2023, 1, 10, 12, 0);
+        Booking oldest = save(first, booker, start.minusDays(1), BookingStatus.APPROVED);
+        Booking newest = save(second, booker, start.plusDays(1), BookingStatus.REJECTED);
+        Booking middle = save(first, booker, start, BookingStatus.WAITING);
+        save(notOwned, booker, start, BookingStatus.APPROVED);
+
+        List<BookingDtoOutgoing> exported;
+        try (Stream<BookingDtoOutgoing> bookings = memoryBooking.streamByItemOwnerId(owner.getId())) {
+            exported = bookings.collect(Collectors.toList());
+        }
+
+        assertThat(ids(exported), contains(newest.getId(), middle.getId(), oldest.getId()));
+        assertThat(exported.get(0).getItem().getName(), equalTo("second"));
+        assertThat(exported.get(0).getBooker().getName(), equalTo("booker"));
+    }
+
+    private List<Integer> ids(List<BookingDtoOutgoing> bookings) {
+        return bookings.stream().map(BookingDtoOutgoing::getId).collect(Collectors.toList());
+    }
+
+    private Booking save(Item item, User booker, LocalDateTime start, BookingStatus status) {
+        return memoryBooking.save(new Booking(null, start, start.plusHours(1), item, booker, status));
+    }
+}
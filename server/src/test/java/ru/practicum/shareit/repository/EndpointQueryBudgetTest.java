@@ -0,0 +1,190 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.item.model.comment.Comment;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryComment;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.MemoryRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every endpoint runs against several rows and must stay within a query budget that does not depend on their number,
+ * so a lazy association read per row fails the test.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class EndpointQueryBudgetTest {
+    private static final int ROWS = 5;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MemoryUser memoryUser;
+    @Autowired
+    private MemoryItem memoryItem;
+    @Autowired
+    private MemoryBooking memoryBooking;
+    @Autowired
+    private MemoryComment memoryComment;
+    @Autowired
+    private MemoryRequest memoryRequest;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryBudget queryBudget;
+    private User owner;
+    private final List<User> bookers = new ArrayList<>();
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        queryBudget = new QueryBudget(entityManagerFactory);
+        owner = memoryUser.save(new User(null, "owner", "budget-owner@email.com"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ROWS; i++) {
+            User booker = memoryUser.save(new User(null, "booker" + i, "budget-booker" + i + "@email.com"));
+            Request request = memoryRequest.save(new Request(null, "request" + i, booker, now.minusHours(i)));
+            Item item = memoryItem.save(new Item(null, "budget item" + i, "description" + i, true, owner,
+                    i % 2 == 0 ? request : null));
+            bookings.add(memoryBooking.save(new Booking(null, now.minusDays(i + 2), now.minusDays(i + 1), item, booker, BookingStatus.APPROVED)));
+            bookings.add(memoryBooking.save(new Booking(null, now.plusDays(i + 1), now.plusDays(i + 2), item, booker, BookingStatus.WAITING)));
+            memoryComment.save(new Comment(null, "comment" + i, item, booker, now));
+            itemSearchIndex.index(item);
+            bookers.add(booker);
+            items.add(item);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        items.forEach(item -> itemSearchIndex.remove(item.getId()));
+        memoryComment.deleteAll();
+        memoryBooking.deleteAll();
+        memoryItem.deleteAll();
+        memoryRequest.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldGetBookerBookingsWithinBudget() throws Exception {
+        perform(2, "GET /bookings", get("/bookings?state=ALL&from=0&size=20")
+                .header("X-Sharer-User-Id", bookers.get(0).getId()))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    public void shouldGetOwnerBookingsWithinBudget() throws Exception {
+        perform(2, "GET /bookings/owner", get("/bookings/owner?state=ALL&from=0&size=20")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.length()").value(ROWS * 2));
+        perform(2, "GET /bookings/owner?state=WAITING", get("/bookings/owner?state=WAITING&from=0&size=20")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.length()").value(ROWS));
+    }
+
+    @Test
+    public void shouldExportOwnerBookingsWithinBudget() throws Exception {
+        perform(2, "GET /bookings/owner/export", get("/bookings/owner/export")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(content().string(matchesPattern("(\\{.*}\n){" + ROWS * 2 + "}")));
+    }
+
+    @Test
+    public void shouldGetBookingWithinBudget() throws Exception {
+        perform(2, "GET /bookings/{id}", get("/bookings/" + bookings.get(0).getId())
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.item.name").value(items.get(0).getName()));
+    }
+
+    @Test
+    public void shouldApproveBookingWithinBudget() throws Exception {
+        perform(2, "PATCH /bookings/{id}", patch("/bookings/" + bookings.get(1).getId() + "?approved=true")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.booker.name").value(bookers.get(0).getName()));
+    }
+
+    @Test
+    public void shouldGetOwnerItemsWithinBudget() throws Exception {
+        perform(3, "GET /items", get("/items?from=0&size=20")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.length()").value(ROWS));
+    }
+
+    @Test
+    public void shouldExportOwnerItemsWithinBudget() throws Exception {
+        perform(2, "GET /items/export", get("/items/export")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(content().string(matchesPattern("(\\{.*}\n){" + ROWS + "}")));
+    }
+
+    @Test
+    public void shouldGetItemWithinBudget() throws Exception {
+        perform(2, "GET /items/{id}", get("/items/" + items.get(0).getId())
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.comments.length()").value(1));
+    }
+
+    @Test
+    public void shouldSearchItemsWithinBudget() throws Exception {
+        perform(0, "GET /items/search", get("/items/search?text=budget&from=0&size=20")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.length()").value(ROWS));
+    }
+
+    @Test
+    public void shouldGetUsersWithinBudget() throws Exception {
+        perform(1, "GET /users", get("/users"))
+                .andExpect(jsonPath("$.length()").value(ROWS + 1));
+    }
+
+    @Test
+    public void shouldGetOwnRequestsWithinBudget() throws Exception {
+        perform(2, "GET /requests", get("/requests")
+                .header("X-Sharer-User-Id", bookers.get(0).getId()))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].items.length()").value(1));
+    }
+
+    @Test
+    public void shouldGetAllRequestsWithinBudget() throws Exception {
+        perform(2, "GET /requests/all", get("/requests/all?from=0&size=20")
+                .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(jsonPath("$.length()").value(ROWS))
+                .andExpect(jsonPath("$[0].items.length()").value(1))
+                .andExpect(jsonPath("$[1].items.length()").value(0));
+    }
+
+    private ResultActions perform(long budget, String name, RequestBuilder request) throws Exception {
+        return queryBudget.within(budget, name, () -> mvc.perform(request).andExpect(status().isOk()));
+    }
+}
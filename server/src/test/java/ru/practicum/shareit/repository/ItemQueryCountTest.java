@@ -0,0 +1,94 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.model.comment.Comment;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
+import ru.practicum.shareit.item.repository.MemoryComment;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemQueryCountTest {
+    private static final long QUERIES_PER_PAGE = 2;
+
+    private final ItemService itemService;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+    private final UserCache userCache;
+    private final MemoryComment memoryComment;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private final List<User> authors = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        owner = memoryUser.save(new User(null, "owner", "query-count-owner@email.com"));
+        for (int i = 0; i < 3; i++) {
+            authors.add(memoryUser.save(new User(null, "author" + i, "query-count-author" + i + "@email.com")));
+        }
+        userCache.existsById(owner.getId());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        memoryComment.deleteAll();
+        memoryItem.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldGetItemsWithFixedQueryCount() {
+        addItems(2);
+        long smallPage = countQueries(() -> itemService.getItems(owner.getId(), 0, 20));
+
+        addItems(10);
+        long largePage = countQueries(() -> itemService.getItems(owner.getId(), 0, 20));
+        List<ItemDto> items = itemService.getItems(owner.getId(), 0, 20);
+
+        assertThat(items.size(), equalTo(12));
+        assertThat(items.get(11).getComments().size(), equalTo(authors.size()));
+        assertThat(smallPage, equalTo(QUERIES_PER_PAGE));
+        assertThat(largePage, equalTo(QUERIES_PER_PAGE));
+    }
+
+    private void addItems(int count) {
+        for (int i = 0; i < count; i++) {
+            Item item = memoryItem.save(new Item(null, "item" + i, "description" + i, true, owner, null));
+            for (User author : authors) {
+                memoryComment.save(new Comment(null, "comment", item, author, LocalDateTime.now()));
+            }
+        }
+    }
+
+    private long countQueries(Runnable runnable) {
+        Statistics statistics = statistics();
+        statistics.clear();
+        runnable.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.item.repository.MemoryItem;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seeds a large items table in PostgreSQL and reports /items/search latency with and without the trigram indexes.
+ * Run explicitly: {@code mvn test -Dtest=ItemSearchLatencyTest -Dshareit.benchmark=true [-Dshareit.benchmark.items=N]}.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSearchLatencyTest {
+    private static final int ITEMS = Integer.getInteger("shareit.benchmark.items", 1_000_000);
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+    private static final List<String> TERMS = List.of("drill", "saw", "ladder", "tent", "kayak", "camera", "xyz");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    private final MemoryItem memoryItem;
+    private final JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Test
+    public void reportSearchLatency() {
+        seed();
+        long[] withIndex = measure();
+        jdbcTemplate.execute("DROP INDEX ix_items_name_trgm");
+        jdbcTemplate.execute("DROP INDEX ix_items_description_trgm");
+        long[] withoutIndex = measure();
+
+        log.info("Search over {} items, {} queries per run", ITEMS, ITERATIONS);
+        log.info("before (sequential scan): p50 {} ms, p99 {} ms", percentile(withoutIndex, 50), percentile(withoutIndex, 99));
+        log.info("after (pg_trgm GIN):      p50 {} ms, p99 {} ms", percentile(withIndex, 50), percentile(withIndex, 99));
+    }
+
+    private void seed() {
+        jdbcTemplate.update("insert into users (name, email) values ('owner', 'owner@email.com')");
+        jdbcTemplate.update("insert into items (name, description, is_available, owner) " +
+                "select (array['drill', 'saw', 'ladder', 'tent', 'kayak', 'camera'])[1 + g % 6] || ' ' || md5(g::text), " +
+                "md5((g * 7)::text) || ' ' || (array['cordless', 'heavy', 'folding', 'family'])[1 + g % 4], " +
+                "g % 10 <> 0, (select min(id) from users) " +
+                "from generate_series(1, ?) as g", ITEMS);
+        jdbcTemplate.execute("ANALYZE items");
+    }
+
+    private long[] measure() {
+        for (int i = 0; i < WARMUP; i++) {
+            search(i);
+        }
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            search(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private void search(int iteration) {
+        memoryItem.findByText(TERMS.get(iteration % TERMS.size()), PageRequest.of(0, 10));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
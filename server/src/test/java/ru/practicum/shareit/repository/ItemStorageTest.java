@@ -4,28 +4,59 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.MemoryRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.MemoryUser;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
 @DataJpaTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class ItemStorageTest {
     private final MemoryItem memoryItem;
     private final MemoryUser memoryUser;
+    private final MemoryRequest memoryRequest;
 
     @Test
     public void shouldFindByText() {
         User user = new User(null, "user", "user@email.com");
         memoryUser.save(user);
-        Item item = new Item(
-                null,
-                "item name",
-                "item description",
-                true,
-                user,
-                null
-        );
+        Item inDescription = memoryItem.save(new Item(null, "hammer", "heavy drill bit", true, user, null));
+        Item inName = memoryItem.save(new Item(null, "Cordless DRILL", "item description", true, user, null));
+        memoryItem.save(new Item(null, "drill", "item description", false, user, null));
+        Item namePrefix = memoryItem.save(new Item(null, "Drill press", "item description", true, user, null));
+        memoryItem.save(new Item(null, "saw", "item description", true, user, null));
+
+        List<Integer> found = memoryItem.findByText("dRiLl", PageRequest.of(0, 10)).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+
+        assertThat(found, contains(namePrefix.getId(), inName.getId(), inDescription.getId()));
+    }
+
+    @Test
+    public void shouldFindOwnerItemsAsDto() {
+        User owner = memoryUser.save(new User(null, "owner", "owner@email.com"));
+        User other = memoryUser.save(new User(null, "other", "other@email.com"));
+        Request request = memoryRequest.save(new Request(null, "request", other, LocalDateTime.now()));
+        Item requested = memoryItem.save(new Item(null, "drill", "item description", true, owner, request));
+        Item own = memoryItem.save(new Item(null, "saw", "item description", false, owner, null));
+        memoryItem.save(new Item(null, "hammer", "item description", true, other, null));
+
+        List<ItemDto> items = memoryItem.findDtoByOwnerIdOrderById(owner.getId(), PageRequest.of(0, 10));
+
+        assertThat(items, contains(
+                new ItemDto(requested.getId(), "drill", "item description", true, request.getId()),
+                new ItemDto(own.getId(), "saw", "item description", false, null)));
     }
-}
\ No newline at end of file
+}
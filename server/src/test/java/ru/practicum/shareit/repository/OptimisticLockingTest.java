@@ -0,0 +1,100 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.exception.ErrorHandler;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class OptimisticLockingTest {
+    private final MemoryBooking memoryBooking;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+    private final ItemService itemService;
+    private final PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        memoryBooking.deleteAll();
+        memoryItem.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldRejectApprovalOfBookingChangedMeanwhile() {
+        User owner = memoryUser.save(new User(null, "owner", "locking-owner@email.com"));
+        User booker = memoryUser.save(new User(null, "booker", "locking-booker@email.com"));
+        Item item = memoryItem.save(new Item(null, "item", "item description", true, owner, null));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        int bookingId = memoryBooking.save(new Booking(null, start, start.plusHours(1), item, booker, BookingStatus.WAITING)).getId();
+
+        Booking[] stale = new Booking[1];
+        ObjectOptimisticLockingFailureException e = Assertions.assertThrows(
+                ObjectOptimisticLockingFailureException.class,
+                () -> readThenChangeConcurrently(
+                        () -> stale[0] = memoryBooking.findById(bookingId).orElseThrow(),
+                        () -> memoryBooking.findById(bookingId).orElseThrow().setStatus(BookingStatus.REJECTED),
+                        () -> stale[0].setStatus(BookingStatus.APPROVED)
+                )
+        );
+
+        Booking booking = memoryBooking.findById(bookingId).orElseThrow();
+        assertThat(booking.getStatus(), equalTo(BookingStatus.REJECTED));
+        assertThat(booking.getVersion(), equalTo(1L));
+        assertThat(new ErrorHandler().handlerOptimisticLockingFailureException(e).getError(),
+                equalTo("Changed by another request"));
+    }
+
+    @Test
+    public void shouldKeepConcurrentChangeOfAnotherColumnWhenPatchingItem() {
+        User owner = memoryUser.save(new User(null, "owner", "locking-owner@email.com"));
+        Item item = memoryItem.save(new Item(null, "item", "item description", true, owner, null));
+        ItemDto rename = new ItemDto(null, "renamed", null, null, null, null, null, null);
+
+        readThenChangeConcurrently(
+                () -> { },
+                () -> memoryItem.findById(item.getId()).orElseThrow().setDescription("changed meanwhile"),
+                () -> itemService.putItem(item.getId(), rename, owner.getId())
+        );
+
+        Item stored = memoryItem.findById(item.getId()).orElseThrow();
+        assertThat(stored.getName(), equalTo("renamed"));
+        assertThat(stored.getDescription(), equalTo("changed meanwhile"));
+        assertThat(stored.getVersion(), equalTo(2L));
+    }
+
+    /**
+     * Runs a read in one transaction and, before it commits, a change of the same row in another one.
+     */
+    private void readThenChangeConcurrently(Runnable read, Runnable concurrentChange, Runnable update) {
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            read.run();
+            concurrent.executeWithoutResult(inner -> concurrentChange.run());
+            update.run();
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exception.model.NotFoundException;
+import ru.practicum.shareit.exception.model.OwnerItemException;
+import ru.practicum.shareit.exception.model.ReplayException;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDto;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDto;
+import ru.practicum.shareit.user.repository.MemoryUser;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class PartialUpdateTest {
+    private final ItemService itemService;
+    private final UserService userService;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+    private final UserCache userCache;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    public void setUp() {
+        owner = memoryUser.save(new User(null, "owner", "patch-owner@email.com"));
+        item = memoryItem.save(new Item(null, "item", "item description", true, owner, null));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        memoryItem.deleteAll();
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldPatchItemWithoutReadingItFirst() {
+        ItemDto patch = new ItemDto(null, null, "new description", false, null, null, null, null);
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        ItemDto patched = itemService.putItem(item.getId(), patch, owner.getId());
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(2L));
+        assertThat(statistics.getEntityLoadCount(), equalTo(1L));
+        assertThat(patched.getName(), equalTo("item"));
+        assertThat(patched.getDescription(), equalTo("new description"));
+        assertThat(patched.getIsAvailable(), equalTo(false));
+        assertThat(memoryItem.findById(item.getId()).orElseThrow().getVersion(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldTellMissingItemFromItemOfAnotherOwner() {
+        User other = memoryUser.save(new User(null, "other", "patch-other@email.com"));
+        ItemDto patch = new ItemDto(null, "renamed", null, null, null, null, null, null);
+
+        Assertions.assertThrows(OwnerItemException.class,
+                () -> itemService.putItem(item.getId(), patch, other.getId()));
+        Assertions.assertThrows(NotFoundException.class,
+                () -> itemService.putItem(item.getId() + 1000, patch, owner.getId()));
+        assertThat(memoryItem.findById(item.getId()).orElseThrow().getName(), equalTo("item"));
+    }
+
+    @Test
+    public void shouldNotPatchItemWithMissingRequest() {
+        ItemDto patch = new ItemDto(null, "renamed", null, null, 1000, null, null, null);
+
+        NotFoundException e = Assertions.assertThrows(NotFoundException.class,
+                () -> itemService.putItem(item.getId(), patch, owner.getId()));
+
+        assertThat(e.getMessage(), equalTo("Not found request requestId: 1000"));
+    }
+
+    @Test
+    public void shouldPatchUserAndEvictCachedUser() {
+        userCache.findById(owner.getId());
+
+        UserDto patched = userService.putUser(owner.getId(), new UserDto(null, "renamed", null));
+
+        assertThat(patched.getName(), equalTo("renamed"));
+        assertThat(patched.getEmail(), equalTo("patch-owner@email.com"));
+        assertThat(userService.getUser(owner.getId()).getName(), equalTo("renamed"));
+    }
+
+    @Test
+    public void shouldNotPatchUserWithTakenEmail() {
+        User other = memoryUser.save(new User(null, "other", "patch-other@email.com"));
+
+        Assertions.assertThrows(ReplayException.class,
+                () -> userService.putUser(other.getId(), new UserDto(null, null, "patch-owner@email.com")));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
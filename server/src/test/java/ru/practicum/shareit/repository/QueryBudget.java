@@ -0,0 +1,29 @@
+package ru.practicum.shareit.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Counts the statements Hibernate prepares while an action runs and fails when there are more than the budget.
+ * Needs {@code hibernate.generate_statistics}. Statistics are global, so the action must not run beside other work.
+ */
+public class QueryBudget {
+    private final Statistics statistics;
+
+    public QueryBudget(EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public <T> T within(long budget, String name, Callable<T> action) throws Exception {
+        statistics.clear();
+        T result = action.call();
+        assertThat("Queries of " + name, statistics.getPrepareStatementCount(), lessThanOrEqualTo(budget));
+        return result;
+    }
+}
@@ -0,0 +1,219 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.item.repository.MemoryComment;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.request.repository.MemoryRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Checks that the hot queries of the repositories are served by the indexes from the migrations.
+ * Plans are only meaningful on PostgreSQL, so the test runs against a container and is skipped without Docker.
+ * The planner keeps its defaults: the tables are seeded to a realistic size and analyzed, and the statements are
+ * the ones the repository methods generate, recorded by {@link StatementRecorder} and explained with the same
+ * parameter values. The data is committed once for all the tests, which only read it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.repository.StatementRecorder")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class QueryPlanTest {
+    private static final int USERS = 2_000;
+    private static final int REQUESTS = 5_000;
+    private static final int ITEMS = 20_000;
+    private static final int COMMENTS = 100_000;
+    private static final int BOOKINGS = 400_000;
+    private static final int PAGE = 20;
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    /*
+     * Booking g is of item g % ITEMS + 1, owned by user item % USERS + 1, and is booked by user 7g % USERS + 1,
+     * so every booker and every owner has 200 bookings of 10 items. The bookings of an item are 20 days apart
+     * around NOW and do not overlap.
+     */
+    private static final int BOOKER = 8;
+    private static final int BOOKER_ITEM = 2;
+    private static final int OWNER = 1;
+    private static final int ITEM = 1;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
+
+    private static boolean seeded;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemoryBooking memoryBooking;
+    private final MemoryItem memoryItem;
+    private final MemoryRequest memoryRequest;
+    private final MemoryComment memoryComment;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        if (!seeded) {
+            seed();
+            jdbcTemplate.execute("ANALYZE");
+            seeded = true;
+        }
+    }
+
+    @Test
+    public void shouldSeekBookerBookingsByIndex() {
+        List<BookingDtoOutgoing> firstPage = memoryBooking.findByBookerIdAfter(BOOKER,
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), PageRequest.of(0, PAGE));
+        assertThat(firstPage, hasSize(PAGE));
+        BookingDtoOutgoing last = firstPage.get(PAGE - 1);
+
+        String sql = StatementRecorder.single("findByBookerIdAfter", () -> memoryBooking.findByBookerIdAfter(BOOKER,
+                last.getStart(), last.getId(), PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_booker_start_id", BOOKER, last.getStart(), last.getId(), PAGE);
+
+        sql = StatementRecorder.single("findFutureByBookerIdAfter", () -> memoryBooking.findFutureByBookerIdAfter(
+                BOOKER, BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), NOW, PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_booker_start_id",
+                BOOKER, BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), NOW, PAGE);
+    }
+
+    @Test
+    public void shouldSeekBookerBookingsByStatusByIndex() {
+        String sql = StatementRecorder.single("findByBookerIdAndStatusAfter", () ->
+                memoryBooking.findByBookerIdAndStatusAfter(BOOKER, NOW, Integer.MAX_VALUE, BookingStatus.WAITING,
+                        PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_booker_status_start_id",
+                BOOKER, NOW, Integer.MAX_VALUE, BookingStatus.WAITING.name(), PAGE);
+    }
+
+    @Test
+    public void shouldSeekOwnerBookingsByIndex() {
+        List<BookingDtoOutgoing> firstPage = memoryBooking.findByItemOwnerIdAfter(OWNER,
+                BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), PageRequest.of(0, PAGE));
+        assertThat(firstPage, hasSize(PAGE));
+        BookingDtoOutgoing last = firstPage.get(PAGE - 1);
+
+        String sql = StatementRecorder.single("findByItemOwnerIdAfter", () -> memoryBooking.findByItemOwnerIdAfter(
+                OWNER, last.getStart(), last.getId(), PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_owner_start_id", OWNER, last.getStart(), last.getId(), PAGE);
+
+        sql = StatementRecorder.single("findPastByItemOwnerIdAfter", () -> memoryBooking.findPastByItemOwnerIdAfter(
+                OWNER, BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), NOW, PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_owner_start_id",
+                OWNER, BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), NOW, PAGE);
+    }
+
+    @Test
+    public void shouldSeekOwnerBookingsByStatusByIndex() {
+        String sql = StatementRecorder.single("findByItemOwnerIdAndStatusAfter", () ->
+                memoryBooking.findByItemOwnerIdAndStatusAfter(OWNER, NOW, Integer.MAX_VALUE, BookingStatus.WAITING,
+                        PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_bookings_owner_status_start_id",
+                OWNER, NOW, Integer.MAX_VALUE, BookingStatus.WAITING.name(), PAGE);
+    }
+
+    @Test
+    public void shouldUseIndexForNearestItemBookings() {
+        String sql = StatementRecorder.single("findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc", () ->
+                memoryBooking.findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(ITEM, BookingStatus.REJECTED,
+                        NOW));
+        assertUsesIndex(sql, "ix_bookings_item_", ITEM, BookingStatus.REJECTED.name(), NOW, 1);
+
+        sql = StatementRecorder.single("findLastAndNextByItemIdIn", () ->
+                memoryBooking.findLastAndNextByItemIdIn(List.of(ITEM, ITEM + 1, ITEM + 2), NOW));
+        assertUsesIndex(sql, "ix_bookings_item_", ITEM, ITEM + 1, ITEM + 2, NOW, ITEM, ITEM + 1, ITEM + 2, NOW);
+    }
+
+    @Test
+    public void shouldUseIndexForBookerItemBookings() {
+        String sql = StatementRecorder.single("existsByBookerIdAndItemIdAndEndBefore", () ->
+                memoryBooking.existsByBookerIdAndItemIdAndEndBefore(BOOKER, BOOKER_ITEM, NOW));
+        assertUsesIndex(sql, "ix_bookings_booker_item", BOOKER, BOOKER_ITEM, NOW, 1);
+    }
+
+    @Test
+    public void shouldUseIndexForOwnerItems() {
+        String sql = StatementRecorder.single("findDtoByOwnerIdOrderById", () ->
+                memoryItem.findDtoByOwnerIdOrderById(OWNER, PageRequest.of(0, PAGE)));
+        assertUsesIndex(sql, "ix_items_owner", OWNER, PAGE);
+    }
+
+    @Test
+    public void shouldUseIndexForRequestItems() {
+        String sql = StatementRecorder.single("findByRequestId", () -> memoryItem.findByRequestId(1));
+        assertUsesIndex(sql, "ix_items_request", 1);
+
+        sql = StatementRecorder.single("findWithItemsByRequestorId", () ->
+                memoryRequest.findWithItemsByRequestorId(OWNER));
+        assertUsesIndex(sql, "ix_item_requests_requestor_created", OWNER);
+    }
+
+    @Test
+    public void shouldUseIndexForItemComments() {
+        String sql = StatementRecorder.single("findByItemIdOrderByCreatedDesc", () ->
+                memoryComment.findByItemIdOrderByCreatedDesc(ITEM));
+        assertUsesIndex(sql, "ix_comments_item_created", ITEM);
+    }
+
+    private void seed() {
+        Timestamp now = Timestamp.valueOf(NOW);
+        jdbcTemplate.update("insert into users (id, name, email) " +
+                "select g, 'user' || g, 'user' || g || '@email.com' from generate_series(1, ?) as g", USERS);
+        jdbcTemplate.update("insert into item_requests (id, description, requestor_id, created) " +
+                "select g, 'request', g % ? + 1, ?::timestamp - g * interval '1 hour' " +
+                "from generate_series(1, ?) as g", USERS, now, REQUESTS);
+        jdbcTemplate.update("insert into items (id, name, description, is_available, owner, request_id) " +
+                "select g, 'item' || g, 'description of item ' || g, true, g % ? + 1, " +
+                "case when g % 4 = 0 then g / 4 % ? + 1 end from generate_series(1, ?) as g", USERS, REQUESTS, ITEMS);
+        jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) " +
+                "select g, 'comment', g % ? + 1, g % ? + 1, ?::timestamp - g * interval '1 minute' " +
+                "from generate_series(1, ?) as g", ITEMS, USERS, now, COMMENTS);
+        jdbcTemplate.update("insert into bookings (id, start_time, end_time, item_id, booker_id, status, " +
+                        "item_owner_id) " +
+                "select g, s.start_time, s.start_time + interval '1 day', g % ? + 1, 7 * g % ? + 1, " +
+                "(array['WAITING', 'APPROVED', 'REJECTED', 'CANCELED'])[g % 4 + 1], (g % ? + 1) % ? + 1 " +
+                "from generate_series(1, ?) as g, " +
+                "lateral (select ?::timestamp - interval '200 days' + g / ? * interval '20 days' " +
+                "+ g % 24 * interval '1 hour' as start_time) as s",
+                ITEMS, USERS, ITEMS, USERS, BOOKINGS, now, ITEMS);
+    }
+
+    private void assertUsesIndex(String sql, String index, Object... parameters) {
+        List<String> rows = jdbcTemplate.queryForList("explain " + sql, String.class, parameters);
+        String plan = String.join("\n", rows).toLowerCase(Locale.ROOT);
+        assertThat(sql, plan, containsString(index));
+    }
+}
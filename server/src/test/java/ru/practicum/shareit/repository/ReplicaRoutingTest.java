@@ -0,0 +1,172 @@
+package ru.practicum.shareit.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
+import ru.practicum.shareit.item.search.InMemoryItemSearchIndex;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two embedded databases without replication between them, so a row written to one of them shows
+ * which database a request has read from.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "shareit.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica",
+        "shareit.datasource.replica.username=test",
+        "shareit.datasource.replica.password=test",
+        "shareit.datasource.migrate-replica=true"})
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+    private static final int OWNER_ID = 1001;
+    private static final int BOOKER_ID = 1002;
+    private static final int READER_ID = 1003;
+    private static final int ITEM_ID = 1001;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookingCalendar bookingCalendar;
+    @Autowired
+    private InMemoryItemSearchIndex itemSearchIndex;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("insert into users (id, name, email) values (?, 'owner', 'routing-owner@email.com')", OWNER_ID);
+            database.update("insert into users (id, name, email) values (?, 'booker', 'routing-booker@email.com')", BOOKER_ID);
+            database.update("insert into users (id, name, email) values (?, 'reader', 'routing-reader@email.com')", READER_ID);
+            database.update("insert into items (id, name, description, is_available, owner) values (?, 'drill', 'drill', true, ?)",
+                    ITEM_ID, OWNER_ID);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("delete from bookings");
+            database.update("delete from items where id = ?", ITEM_ID);
+            database.update("delete from users where id in (?, ?, ?)", OWNER_ID, BOOKER_ID, READER_ID);
+        }
+    }
+
+    @Test
+    public void shouldReadFromReplicaInReadOnlyTransaction() throws Exception {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        replica.update("insert into bookings (start_time, end_time, item_id, booker_id, status, item_owner_id) " +
+                        "values (?, ?, ?, ?, 'APPROVED', ?)",
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), ITEM_ID, READER_ID, OWNER_ID);
+
+        mvc.perform(get("/bookings").header("X-Sharer-User-Id", READER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void shouldWriteToPrimaryAndReadOwnWritesFromIt() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", BOOKER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + ITEM_ID + ", \"start\": \"" + start + "\", \"end\": \"" + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(primary.queryForObject("select count(*) from bookings", Integer.class), equalTo(1));
+        assertThat(replica.queryForObject("select count(*) from bookings", Integer.class), equalTo(0));
+        mvc.perform(get("/bookings").header("X-Sharer-User-Id", BOOKER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        mvc.perform(get("/bookings/owner").header("X-Sharer-User-Id", OWNER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void shouldNotCacheUserFromStaleReplica() throws Exception {
+        mvc.perform(patch("/users/" + READER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"renamed\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/users/" + READER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", equalTo("renamed")));
+        assertThat(replica.queryForObject("select name from users where id = ?", String.class, READER_ID), equalTo("reader"));
+    }
+
+    @Test
+    public void shouldNotCacheItemFromStaleReplica() throws Exception {
+        mvc.perform(patch("/items/" + ITEM_ID)
+                        .header("X-Sharer-User-Id", OWNER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"hammer\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/items/" + ITEM_ID).header("X-Sharer-User-Id", READER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", equalTo("hammer")));
+    }
+
+    @Test
+    public void shouldBuildCalendarFromPrimary() {
+        LocalDateTime start = LocalDateTime.now().plusDays(100);
+        primary.update("insert into bookings (start_time, end_time, item_id, booker_id, status, item_owner_id) " +
+                        "values (?, ?, ?, ?, 'APPROVED', ?)",
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), ITEM_ID, BOOKER_ID, OWNER_ID);
+
+        bookingCalendar.rebuild();
+
+        assertThat(bookingCalendar.overlaps(ITEM_ID, start.plusHours(1), start.plusHours(2)), equalTo(true));
+    }
+
+    @Test
+    public void shouldBuildSearchIndexFromPrimary() {
+        primary.update("update items set name = 'screwdriver' where id = ?", ITEM_ID);
+
+        itemSearchIndex.rebuild();
+
+        assertThat(itemSearchIndex.search("screwdriver", PageRequest.of(0, 10)), hasSize(1));
+    }
+
+    @Test
+    public void shouldReportMetricsPerPool() {
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge(), notNullValue());
+        assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica").gauge(), notNullValue());
+    }
+}
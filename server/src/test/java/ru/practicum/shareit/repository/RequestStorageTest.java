@@ -0,0 +1,77 @@
+package ru.practicum.shareit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.model.RequestItemRow;
+import ru.practicum.shareit.request.repository.MemoryRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.MemoryUser;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@DataJpaTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RequestStorageTest {
+    private final MemoryRequest memoryRequest;
+    private final MemoryItem memoryItem;
+    private final MemoryUser memoryUser;
+
+    @Test
+    public void shouldPageRequestsOfOthersWithTheirItems() {
+        User requestor = memoryUser.save(new User(null, "requestor", "requestor@email.com"));
+        User owner = memoryUser.save(new User(null, "owner", "owner@email.com"));
+        LocalDateTime created = LocalDateTime.of(2023, 1, 10, 12, 0);
+        Request oldest = memoryRequest.save(new Request(null, "oldest", requestor, created.minusDays(1)));
+        Request sameTimeFirst = memoryRequest.save(new Request(null, "first", requestor, created));
+        Request sameTimeSecond = memoryRequest.save(new Request(null, "second", requestor, created));
+        Request newest = memoryRequest.save(new Request(null, "newest", requestor, created.plusDays(1)));
+        memoryRequest.save(new Request(null, "own", owner, created.plusDays(2)));
+        Item firstItem = memoryItem.save(new Item(null, "drill", "item description", true, owner, sameTimeSecond));
+        Item secondItem = memoryItem.save(new Item(null, "saw", "item description", false, owner, sameTimeSecond));
+        memoryItem.save(new Item(null, "hammer", "item description", true, owner, oldest));
+
+        List<RequestItemRow> firstPage = memoryRequest.findWithItemsByRequestorIdNot(owner.getId(), 0, 2);
+        List<RequestItemRow> secondPage = memoryRequest.findWithItemsByRequestorIdNot(owner.getId(), 2, 2);
+
+        assertThat(requestIds(firstPage), contains(newest.getId(), sameTimeSecond.getId(), sameTimeSecond.getId()));
+        assertThat(firstPage.get(0).getItemId(), nullValue());
+        assertThat(firstPage.get(0).getCreated(), equalTo(newest.getCreated()));
+        assertThat(itemIds(firstPage.subList(1, 3)), contains(firstItem.getId(), secondItem.getId()));
+        assertThat(firstPage.get(2).getItemName(), equalTo("saw"));
+        assertThat(firstPage.get(2).getItemAvailable(), equalTo(false));
+        assertThat(requestIds(secondPage), contains(sameTimeFirst.getId(), oldest.getId()));
+    }
+
+    @Test
+    public void shouldFindOwnRequestsWithoutItems() {
+        User requestor = memoryUser.save(new User(null, "requestor", "requestor@email.com"));
+        LocalDateTime created = LocalDateTime.of(2023, 1, 10, 12, 0);
+        Request older = memoryRequest.save(new Request(null, "older", requestor, created));
+        Request newer = memoryRequest.save(new Request(null, "newer", requestor, created.plusHours(1)));
+
+        List<RequestItemRow> rows = memoryRequest.findWithItemsByRequestorId(requestor.getId());
+
+        assertThat(requestIds(rows), contains(newer.getId(), older.getId()));
+        assertThat(itemIds(rows), contains(nullValue(), nullValue()));
+    }
+
+    private List<Integer> requestIds(List<RequestItemRow> rows) {
+        return rows.stream().map(RequestItemRow::getId).collect(Collectors.toList());
+    }
+
+    private List<Integer> itemIds(List<RequestItemRow> rows) {
+        return rows.stream().map(RequestItemRow::getItemId).collect(Collectors.toList());
+    }
+}
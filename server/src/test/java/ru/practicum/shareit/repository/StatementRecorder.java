@@ -0,0 +1,34 @@
+package ru.practicum.shareit.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * Records the SQL Hibernate prepares, so a test sees the statement a repository method actually generates.
+ * Registered with {@code hibernate.session_factory.statement_inspector}. Statements are global, so the action must
+ * not run beside other work.
+ */
+public class StatementRecorder implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    /**
+     * Runs the action and returns the single statement it prepared.
+     */
+    public static String single(String name, Runnable action) {
+        STATEMENTS.clear();
+        action.run();
+        assertThat("Statements of " + name, STATEMENTS, hasSize(1));
+        return STATEMENTS.get(0);
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.user.cache.UserCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserDto;
+import ru.practicum.shareit.user.model.UserSnapshot;
+import ru.practicum.shareit.user.repository.MemoryUser;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserCacheTest {
+    private final UserService userService;
+    private final MemoryUser memoryUser;
+    private final UserCache userCache;
+    private final CacheManager cacheManager;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = memoryUser.save(new User(null, "user", "cache-user@email.com"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        memoryUser.deleteAll();
+    }
+
+    @Test
+    public void shouldReadUserOnceUntilUpdated() {
+        long firstRead = countQueries(() -> userService.getUser(user.getId()));
+        long secondRead = countQueries(() -> userService.getUser(user.getId()));
+        userService.putUser(user.getId(), new UserDto(null, "updated", null));
+        long afterUpdate = countQueries(() -> assertThat(userService.getUser(user.getId()).getName(), equalTo("updated")));
+
+        assertThat(firstRead, equalTo(1L));
+        assertThat(secondRead, equalTo(0L));
+        assertThat(afterUpdate, equalTo(1L));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", UserCache.USERS_CACHE).tag("result", "hit")
+                .functionCounter().count(), greaterThanOrEqualTo(1.0));
+    }
+
+    @Test
+    public void shouldNotCacheMissingOrDeletedUser() {
+        int id = user.getId();
+        assertThat(userCache.existsById(id + 1), equalTo(false));
+        User created = memoryUser.save(new User(null, "next", "cache-next@email.com"));
+        assertThat(userCache.existsById(created.getId()), equalTo(true));
+
+        assertThat(userCache.existsById(id), equalTo(true));
+        userService.delUser(id);
+
+        assertThat(userCache.existsById(id), equalTo(false));
+        assertThat(userCache.findById(id).isPresent(), equalTo(false));
+    }
+
+    @Test
+    public void shouldNotPutBackUserReadBeforeUpdateCommitted() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        MemoryUser slowMemoryUser = mock(MemoryUser.class, delegatesTo(memoryUser));
+        doAnswer(invocation -> {
+            Object snapshot = memoryUser.findSnapshotById(invocation.getArgument(0));
+            loaded.countDown();
+            committed.await(5, TimeUnit.SECONDS);
+            return snapshot;
+        }).when(slowMemoryUser).findSnapshotById(anyInt());
+        UserCache slowUserCache = new UserCache(slowMemoryUser, replicaLagGuard, cacheManager);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        CompletableFuture<User> read = CompletableFuture.supplyAsync(() ->
+                slowUserCache.findById(user.getId()).orElseThrow(), executor);
+        assertThat(loaded.await(5, TimeUnit.SECONDS), equalTo(true));
+        CompletableFuture<UserDto> update = CompletableFuture.supplyAsync(() ->
+                userService.putUser(user.getId(), new UserDto(null, "updated", null)), executor);
+        while (!update.isDone() && !memoryUser.findSnapshotById(user.getId()).map(UserSnapshot::getName)
+                .orElseThrow().equals("updated")) {
+            Thread.sleep(10);
+        }
+        committed.countDown();
+
+        assertThat(read.get(5, TimeUnit.SECONDS).getName(), equalTo("user"));
+        update.get(5, TimeUnit.SECONDS);
+        assertThat(userCache.findById(user.getId()).orElseThrow().getName(), equalTo("updated"));
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldNotShareCachedUser() {
+        userCache.findById(user.getId()).orElseThrow().setName("changed");
+
+        assertThat(userCache.findById(user.getId()).orElseThrow().getName(), equalTo("user"));
+    }
+
+    private long countQueries(Runnable runnable) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        runnable.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
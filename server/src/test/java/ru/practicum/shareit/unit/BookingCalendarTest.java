@@ -0,0 +1,153 @@
+package ru.practicum.shareit.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.exception.model.BookingTimeException;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingCalendarTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 1, 10, 12, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+    private static final ReplicaLagGuard REPLICA_LAG_GUARD = new ReplicaLagGuard(Duration.ofSeconds(5), "", null);
+
+    @Mock
+    private MemoryBooking memoryBooking;
+
+    private BookingCalendar bookingCalendar;
+    private Item item;
+    private User booker;
+
+    @BeforeEach
+    public void setUp() {
+        item = new Item(1, "item", "item description", true, new User(1, "owner", "owner@email.com"), null);
+        booker = new User(2, "booker", "booker@email.com");
+        Mockito
+                .when(memoryBooking.findByStatusInOrderById(anyCollection(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(
+                        booking(1, NOW.minusDays(3), NOW.minusDays(2), BookingStatus.APPROVED),
+                        booking(2, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING),
+                        booking(3, NOW.plusDays(4), NOW.plusDays(5), BookingStatus.APPROVED)
+                )));
+        bookingCalendar = new BookingCalendar(memoryBooking, REPLICA_LAG_GUARD, true, CLOCK);
+        bookingCalendar.rebuild();
+    }
+
+    @Test
+    public void shouldFindOverlaps() {
+        assertThat(bookingCalendar.isReady(), equalTo(true));
+        assertThat(bookingCalendar.overlaps(1, NOW.plusDays(1).plusHours(1), NOW.plusDays(1).plusHours(2)), equalTo(true));
+        assertThat(bookingCalendar.overlaps(1, NOW, NOW.plusDays(10)), equalTo(true));
+        assertThat(bookingCalendar.overlaps(1, NOW.plusDays(3), NOW.plusDays(4).plusHours(1)), equalTo(true));
+        assertThat(bookingCalendar.overlaps(1, NOW.plusDays(2), NOW.plusDays(4)), equalTo(false));
+        assertThat(bookingCalendar.overlaps(2, NOW.plusDays(1), NOW.plusDays(2)), equalTo(false));
+    }
+
+    @Test
+    public void shouldFindLastAndNext() {
+        Optional<Booking> last = bookingCalendar.last(1, NOW);
+        Optional<Booking> next = bookingCalendar.next(1, NOW);
+
+        assertThat(last.map(Booking::getId), equalTo(Optional.of(1)));
+        assertThat(last.get().getBooker().getId(), equalTo(booker.getId()));
+        assertThat(last.get().getItem().getId(), equalTo(item.getId()));
+        assertThat(next.map(Booking::getId), equalTo(Optional.of(2)));
+        assertThat(next.get().getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(bookingCalendar.next(1, NOW.plusDays(6)), equalTo(Optional.empty()));
+        assertThat(bookingCalendar.last(2, NOW), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldAddAndUpdateBookings() {
+        bookingCalendar.add(booking(4, NOW.plusDays(2), NOW.plusDays(3), BookingStatus.WAITING));
+        bookingCalendar.update(booking(2, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.REJECTED));
+        bookingCalendar.update(booking(3, NOW.plusDays(4), NOW.plusDays(5), BookingStatus.APPROVED));
+
+        assertThat(bookingCalendar.next(1, NOW).map(Booking::getId), equalTo(Optional.of(4)));
+        assertThat(bookingCalendar.overlaps(1, NOW.plusDays(1), NOW.plusDays(2)), equalTo(false));
+        assertThat(bookingCalendar.next(1, NOW.plusDays(3)).map(Booking::getStatus), equalTo(Optional.of(BookingStatus.APPROVED)));
+    }
+
+    @Test
+    public void shouldNotAddOverlappingBooking() {
+        BookingTimeException e = Assertions.assertThrows(
+                BookingTimeException.class,
+                () -> bookingCalendar.add(booking(4, NOW.plusDays(1).minusHours(1), NOW.plusDays(1).plusHours(1), BookingStatus.WAITING))
+        );
+
+        assertThat(e.getMessage(), equalTo("Booking time is taken itemId: 1"));
+    }
+
+    @Test
+    public void shouldKeepOnlyLatestEndedBooking() {
+        Mockito
+                .when(memoryBooking.findByStatusInOrderById(anyCollection(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(
+                        booking(5, NOW.minusDays(10), NOW.minusDays(9), BookingStatus.APPROVED),
+                        booking(1, NOW.minusDays(3), NOW.minusDays(2), BookingStatus.APPROVED),
+                        booking(2, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING)
+                )));
+        BookingCalendar calendar = new BookingCalendar(memoryBooking, REPLICA_LAG_GUARD, true, CLOCK);
+
+        calendar.rebuild();
+
+        assertThat(calendar.last(1, NOW).map(Booking::getId), equalTo(Optional.of(1)));
+        assertThat(calendar.last(1, NOW.minusDays(8)), equalTo(Optional.empty()));
+        assertThat(calendar.next(1, NOW).map(Booking::getId), equalTo(Optional.of(2)));
+    }
+
+    @Test
+    public void shouldKeepChangesMadeWhileBuilding() {
+        BookingCalendar calendar = new BookingCalendar(memoryBooking, REPLICA_LAG_GUARD, true, CLOCK);
+        Mockito
+                .when(memoryBooking.findByStatusInOrderById(anyCollection(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    CompletableFuture.runAsync(() -> {
+                        calendar.add(booking(4, NOW.plusDays(2), NOW.plusDays(3), BookingStatus.WAITING));
+                        calendar.update(booking(2, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.REJECTED));
+                    }).get(5, TimeUnit.SECONDS);
+                    return new SliceImpl<>(List.of(
+                            booking(1, NOW.minusDays(3), NOW.minusDays(2), BookingStatus.APPROVED),
+                            booking(2, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING)
+                    ));
+                });
+
+        calendar.rebuild();
+
+        assertThat(calendar.isReady(), equalTo(true));
+        assertThat(calendar.next(1, NOW).map(Booking::getId), equalTo(Optional.of(4)));
+        assertThat(calendar.overlaps(1, NOW.plusDays(1), NOW.plusDays(2)), equalTo(false));
+        assertThat(calendar.last(1, NOW).map(Booking::getId), equalTo(Optional.of(1)));
+    }
+
+    private Booking booking(int id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return new Booking(id, start, end, item, booker, status);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.unit;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,19 +9,26 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingDtoOutgoing;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.booking.repository.OffsetPageRequest;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.config.ReplicaLagGuard;
 import ru.practicum.shareit.exception.model.*;
+import ru.practicum.shareit.item.cache.ItemDetailCache;
 import ru.practicum.shareit.item.model.item.Item;
 import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.MemoryUser;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +39,7 @@ import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static ru.practicum.shareit.booking.model.BookingMapper.bookingFromDto;
+import static ru.practicum.shareit.booking.model.BookingMapper.bookingToDtoOutgoing;
 import static ru.practicum.shareit.booking.model.BookingStatus.REJECTED;
 import static ru.practicum.shareit.booking.model.BookingStatus.WAITING;
 
@@ -39,9 +48,15 @@ public class BookingServiceTest {
     @Mock
     private MemoryBooking memoryBooking;
     @Mock
-    private MemoryUser memoryUser;
+    private UserCache userCache;
     @Mock
     private MemoryItem memoryItem;
+    @Mock
+    private BookingCalendar bookingCalendar;
+    @Mock
+    private ItemDetailCache itemDetailCache;
+    @Mock
+    private ReplicaLagGuard replicaLagGuard;
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -75,16 +90,17 @@ public class BookingServiceTest {
     @Test
     public void shouldAddBooking() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(memoryItem.findById(anyInt()))
+                .when(memoryItem.findLockedById(anyInt()))
                 .thenReturn(Optional.of(item));
         Mockito
-                .when(memoryBooking.save(any(Booking.class)))
+                .when(memoryBooking.saveAndFlush(any(Booking.class)))
                 .then(returnsFirstArg());
 
         BookingDtoOutgoing bookingDtoOutgoing = bookingService.postBooking(bookingDtoDefault, bookingDtoDefault.getBookerId());
+        Mockito.verify(bookingCalendar).add(any(Booking.class));
 
         assertThat(bookingDtoOutgoing.getId(), equalTo(bookingDtoDefault.getId()));
         assertThat(bookingDtoOutgoing.getStart(), equalTo(bookingDtoDefault.getStart()));
@@ -94,10 +110,49 @@ public class BookingServiceTest {
         assertThat(bookingDtoOutgoing.getStatus(), equalTo(bookingDtoDefault.getStatus()));
     }
 
+    @Test
+    public void shouldReportOverlapViolationAsTakenTime() {
+        Mockito
+                .when(userCache.findById(anyInt()))
+                .thenReturn(Optional.of(user));
+        Mockito
+                .when(memoryItem.findLockedById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(memoryBooking.saveAndFlush(any(Booking.class)))
+                .thenThrow(violation("ex_bookings_item_period", "23P01"));
+
+        BookingTimeException e = Assertions.assertThrows(
+                BookingTimeException.class,
+                () -> bookingService.postBooking(bookingDtoDefault, bookingDtoDefault.getBookerId())
+        );
+
+        assertThat(e.getMessage(), equalTo("Booking time is taken itemId: " + item.getId()));
+        Mockito.verify(bookingCalendar, Mockito.never()).add(any(Booking.class));
+    }
+
+    @Test
+    public void shouldNotReportOtherViolationAsTakenTime() {
+        Mockito
+                .when(userCache.findById(anyInt()))
+                .thenReturn(Optional.of(user));
+        Mockito
+                .when(memoryItem.findLockedById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(memoryBooking.saveAndFlush(any(Booking.class)))
+                .thenThrow(violation("fk_bookings_to_items", "23503"));
+
+        Assertions.assertThrows(
+                DataIntegrityViolationException.class,
+                () -> bookingService.postBooking(bookingDtoDefault, bookingDtoDefault.getBookerId())
+        );
+    }
+
     @Test
     public void shouldNotAddBookingWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -111,10 +166,10 @@ public class BookingServiceTest {
     @Test
     public void shouldNotAddBookingWhenItemNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(memoryItem.findById(anyInt()))
+                .when(memoryItem.findLockedById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundItemException e = Assertions.assertThrows(
@@ -128,7 +183,7 @@ public class BookingServiceTest {
     @Test
     public void shouldNotAddBookingWhenOwner() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
 
         item = new Item(
@@ -140,7 +195,7 @@ public class BookingServiceTest {
                 null
         );
         Mockito
-                .when(memoryItem.findById(anyInt()))
+                .when(memoryItem.findLockedById(anyInt()))
                 .thenReturn(Optional.of(item));
 
         NotFoundException e = Assertions.assertThrows(
@@ -154,7 +209,7 @@ public class BookingServiceTest {
     @Test
     public void shouldNotAddBookingWhenItemUnavailable() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
 
         item = new Item(
@@ -166,7 +221,7 @@ public class BookingServiceTest {
                 null
         );
         Mockito
-                .when(memoryItem.findById(anyInt()))
+                .when(memoryItem.findLockedById(anyInt()))
                 .thenReturn(Optional.of(item));
 
         NoAccessException e = Assertions.assertThrows(
@@ -180,10 +235,10 @@ public class BookingServiceTest {
     @Test
     public void shouldNotAddBookingWhenEndBeforeStart() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
-                .when(memoryItem.findById(anyInt()))
+                .when(memoryItem.findLockedById(anyInt()))
                 .thenReturn(Optional.of(item));
         bookingDtoDefault = new BookingDtoDefault(
                 1,
@@ -202,6 +257,54 @@ public class BookingServiceTest {
         assertThat(e.getMessage(), equalTo("The end of the booking is later than the beginning"));
     }
 
+    @Test
+    public void shouldNotAddBookingWhenTimeIsTaken() {
+        Mockito
+                .when(userCache.findById(anyInt()))
+                .thenReturn(Optional.of(user));
+        Mockito
+                .when(memoryItem.findLockedById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(memoryBooking.existsOverlapping(
+                        1,
+                        BookingStatus.BLOCKING,
+                        bookingDtoDefault.getStart(),
+                        bookingDtoDefault.getEnd()))
+                .thenReturn(true);
+
+        BookingTimeException e = Assertions.assertThrows(
+                BookingTimeException.class,
+                () -> bookingService.postBooking(bookingDtoDefault, bookingDtoDefault.getBookerId())
+        );
+
+        assertThat(e.getMessage(), equalTo("Booking time is taken itemId: 1"));
+        Mockito.verify(memoryBooking, Mockito.never()).saveAndFlush(any(Booking.class));
+    }
+
+    @Test
+    public void shouldCheckOverlapInCalendarWhenReady() {
+        Mockito
+                .when(userCache.findById(anyInt()))
+                .thenReturn(Optional.of(user));
+        Mockito
+                .when(memoryItem.findLockedById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(bookingCalendar.isReady())
+                .thenReturn(true);
+        Mockito
+                .when(bookingCalendar.overlaps(1, bookingDtoDefault.getStart(), bookingDtoDefault.getEnd()))
+                .thenReturn(true);
+
+        Assertions.assertThrows(
+                BookingTimeException.class,
+                () -> bookingService.postBooking(bookingDtoDefault, bookingDtoDefault.getBookerId())
+        );
+
+        Mockito.verify(memoryBooking, Mockito.never()).existsOverlapping(anyInt(), any(), any(), any());
+    }
+
     @Test
     public void shouldApproveBooking() {
         Mockito
@@ -221,6 +324,8 @@ public class BookingServiceTest {
         assertThat(bookingDtoOutgoing.getItem().getId(), equalTo(bookingDtoDefault.getItemId()));
         assertThat(bookingDtoOutgoing.getBooker().getId(), equalTo(bookingDtoDefault.getBookerId()));
         assertThat(bookingDtoOutgoing.getStatus(), equalTo(BookingStatus.APPROVED));
+        Mockito.verify(replicaLagGuard).recordWrite(2);
+        Mockito.verify(replicaLagGuard).recordWrite(bookingDtoDefault.getBookerId());
     }
 
     @Test
@@ -285,7 +390,7 @@ public class BookingServiceTest {
     @Test
     public void shouldGetById() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(memoryBooking.findById(anyInt()))
@@ -306,7 +411,7 @@ public class BookingServiceTest {
     @Test
     public void shouldNotGetByIdWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundException e = Assertions.assertThrows(
@@ -320,7 +425,7 @@ public class BookingServiceTest {
     @Test
     public void shouldNotGetByIdWhenBookingNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(memoryBooking.findById(anyInt()))
@@ -337,7 +442,7 @@ public class BookingServiceTest {
     @Test
     public void shouldNotGetByIdWhenUserNotOwnerOrBooker() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(memoryBooking.findById(anyInt()))
@@ -356,19 +461,21 @@ public class BookingServiceTest {
     @Test
     public void shouldGetAllUserBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByBookerIdOrderByStartDesc(
+                        memoryBooking.findByBookerIdAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "ALL", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "ALL", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -383,20 +490,22 @@ public class BookingServiceTest {
     @Test
     public void shouldGetWaitingUserBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByBookerIdAndStatusOrderByStartDesc(
+                        memoryBooking.findByBookerIdAndStatusAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(BookingStatus.class),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "WAITING", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "WAITING", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -411,23 +520,25 @@ public class BookingServiceTest {
     @Test
     public void shouldGetFutureUserBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByBookerIdAndStartAfterOrderByStartDesc(
+                        memoryBooking.findFutureByBookerIdAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(LocalDateTime.class),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "FUTURE", 0, 5);
-        bookingService.getUserBookings(2, "CURRENT", 0, 5);
-        bookingService.getUserBookings(2, "PAST", 0, 5);
-        bookingService.getUserBookings(2, "REJECTED", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "FUTURE", 0, 5, null);
+        bookingService.getUserBookings(2, "CURRENT", 0, 5, null);
+        bookingService.getUserBookings(2, "PAST", 0, 5, null);
+        bookingService.getUserBookings(2, "REJECTED", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -443,21 +554,74 @@ public class BookingServiceTest {
     public void shouldNotGetUserBookingsWhenUnknownState() {
         BadRequestException e = Assertions.assertThrows(
                 BadRequestException.class,
-                () -> bookingService.getUserBookings(1, "Test", 0, 5)
+                () -> bookingService.getUserBookings(1, "Test", 0, 5, null)
         );
 
         assertThat(e.getMessage(), equalTo("Unknown state: Test"));
     }
 
+    @Test
+    public void shouldGetUserBookingsAfterCursor() {
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2023, 1, 10, 12, 0), 7);
+        Mockito
+                .when(userCache.existsById(anyInt()))
+                .thenReturn(true);
+        Mockito
+                .when(
+                        memoryBooking.findByBookerIdAfter(
+                                1,
+                                cursor.getStart(),
+                                cursor.getId(),
+                                new OffsetPageRequest(0, 5))
+                )
+                .thenReturn(List.of(
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
+                ));
+
+        List<BookingDtoOutgoing> bookings = bookingService.getUserBookings(1, "ALL", 15, 5, cursor.encode());
+
+        assertThat(bookings.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldGetUserBookingsFromAnyOffset() {
+        Mockito
+                .when(userCache.existsById(anyInt()))
+                .thenReturn(true);
+
+        bookingService.getUserBookings(1, "ALL", 3, 5, null);
+
+        Mockito.verify(memoryBooking).findByBookerIdAfter(
+                1,
+                BookingCursor.FIRST.getStart(),
+                BookingCursor.FIRST.getId(),
+                new OffsetPageRequest(3, 5)
+        );
+    }
+
+    @Test
+    public void shouldNotGetUserBookingsWhenInvalidCursor() {
+        Mockito
+                .when(userCache.existsById(anyInt()))
+                .thenReturn(true);
+
+        BadRequestException e = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingService.getUserBookings(1, "ALL", 0, 5, "bm90LWEtY3Vyc29y")
+        );
+
+        assertThat(e.getMessage(), equalTo("Invalid cursor: bm90LWEtY3Vyc29y"));
+    }
+
     @Test
     public void shouldNotGetUserBookingsWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundException e = Assertions.assertThrows(
                 NotFoundException.class,
-                () -> bookingService.getUserBookings(1, "ALL", 0, 5)
+                () -> bookingService.getUserBookings(1, "ALL", 0, 5, null)
         );
 
         assertThat(e.getMessage(), equalTo("Not found userId: 1"));
@@ -466,22 +630,24 @@ public class BookingServiceTest {
     @Test
     public void shouldGetAllOwnerBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByItemOwnerIdOrderByStartDesc(
+                        memoryBooking.findByItemOwnerIdAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(2, "ALL", 0, 5);
-        bookingService.getOwnerBookings(2, "CURRENT", 0, 5);
-        bookingService.getOwnerBookings(2, "PAST", 0, 5);
-        bookingService.getOwnerBookings(2, "REJECTED", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(2, "ALL", 0, 5, null);
+        bookingService.getOwnerBookings(2, "CURRENT", 0, 5, null);
+        bookingService.getOwnerBookings(2, "PAST", 0, 5, null);
+        bookingService.getOwnerBookings(2, "REJECTED", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -496,20 +662,22 @@ public class BookingServiceTest {
     @Test
     public void shouldGetWaitingOwnerBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByItemOwnerIdAndStatusOrderByStartDesc(
+                        memoryBooking.findByItemOwnerIdAndStatusAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(BookingStatus.class),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(1, "WAITING", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(1, "WAITING", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -524,20 +692,22 @@ public class BookingServiceTest {
     @Test
     public void shouldGetFutureOwnerBookings() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(
-                        memoryBooking.findByItemOwnerIdAndStartAfterOrderByStartDesc(
+                        memoryBooking.findFutureByItemOwnerIdAfter(
+                                anyInt(),
+                                any(LocalDateTime.class),
                                 anyInt(),
                                 any(LocalDateTime.class),
                                 any(Pageable.class))
                 )
                 .thenReturn(List.of(
-                        bookingFromDto(bookingDtoDefault, user, item)
+                        bookingToDtoOutgoing(bookingFromDto(bookingDtoDefault, user, item))
                 ));
 
-        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(1, "FUTURE", 0, 5);
+        List<BookingDtoOutgoing> bookings = bookingService.getOwnerBookings(1, "FUTURE", 0, 5, null);
         BookingDtoOutgoing bookingDtoOutgoing = bookings.get(0);
 
         assertThat(bookings.size(), equalTo(1));
@@ -553,7 +723,7 @@ public class BookingServiceTest {
     public void shouldNotGetOwnerBookingsWhenUnknownState() {
         BadRequestException e = Assertions.assertThrows(
                 BadRequestException.class,
-                () -> bookingService.getOwnerBookings(1, "Test", 0, 5)
+                () -> bookingService.getOwnerBookings(1, "Test", 0, 5, null)
         );
 
         assertThat(e.getMessage(), equalTo("Unknown state: Test"));
@@ -562,14 +732,20 @@ public class BookingServiceTest {
     @Test
     public void shouldNotGetOwnerBookingsWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundException e = Assertions.assertThrows(
                 NotFoundException.class,
-                () -> bookingService.getOwnerBookings(1, "ALL", 0, 5)
+                () -> bookingService.getOwnerBookings(1, "ALL", 0, 5, null)
         );
 
         assertThat(e.getMessage(), equalTo("Not found userId: 1"));
     }
-}
\ No newline at end of file
+
+    private static DataIntegrityViolationException violation(String constraint, String sqlState) {
+        SQLException sqlException = new SQLException("violates constraint " + constraint, sqlState);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraint));
+    }
+}
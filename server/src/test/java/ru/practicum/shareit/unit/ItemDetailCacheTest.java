@@ -0,0 +1,61 @@
+package ru.practicum.shareit.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.BookingDtoDefault;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.cache.ItemDetailCache;
+import ru.practicum.shareit.item.model.item.ItemDetail;
+import ru.practicum.shareit.item.model.item.ItemDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ItemDetailCacheTest {
+    private final ItemDetailCache itemDetailCache = new ItemDetailCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void shouldKeepDetailsUntilInvalidated() {
+        load(1, true, null);
+        load(1, true, null);
+        load(1, false, null);
+        itemDetailCache.invalidate(1);
+        load(1, true, null);
+
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    public void shouldExpireOwnerViewWhenNextBookingStarts() {
+        load(1, true, LocalDateTime.now().minusSeconds(1));
+        load(1, true, LocalDateTime.now().plusDays(1));
+        load(1, true, LocalDateTime.now().plusDays(1));
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRememberItemOwner() {
+        itemDetailCache.putOwner(1, 5);
+        itemDetailCache.remove(1);
+        itemDetailCache.putOwner(2, 6);
+
+        assertThat(itemDetailCache.getOwner(1), equalTo(null));
+        assertThat(itemDetailCache.getOwner(2), equalTo(6));
+    }
+
+    private void load(int itemId, boolean viewerIsOwner, LocalDateTime nextStart) {
+        itemDetailCache.get(itemId, viewerIsOwner, () -> {
+            loads.incrementAndGet();
+            BookingDtoDefault next = nextStart == null ? null
+                    : new BookingDtoDefault(1, nextStart, nextStart.plusHours(1), itemId, 2, BookingStatus.APPROVED);
+            return new ItemDetail(new ItemDto(itemId, "item", "description", true, null, null, next, Collections.emptyList()), "\"1\"");
+        });
+    }
+}
@@ -8,7 +8,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.exception.model.NotFoundException;
 import ru.practicum.shareit.exception.model.NotFoundUserException;
 import ru.practicum.shareit.item.model.item.Item;
@@ -16,13 +17,16 @@ import ru.practicum.shareit.item.model.item.ItemMapper;
 import ru.practicum.shareit.item.repository.MemoryItem;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.model.RequestDto;
+import ru.practicum.shareit.request.model.RequestItemRow;
 import ru.practicum.shareit.request.repository.MemoryRequest;
 import ru.practicum.shareit.request.service.RequestServiceImpl;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.MemoryUser;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -37,12 +41,13 @@ public class ItemRequestServiceTest {
     @Mock
     private MemoryRequest memoryRequest;
     @Mock
-    private MemoryUser memoryUser;
+    private UserCache userCache;
     @Mock
     private MemoryItem memoryItem;
     @InjectMocks
     private RequestServiceImpl requestService;
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
     private User user;
     private RequestDto requestDto;
 
@@ -61,7 +66,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldAddItemRequest() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryRequest.save(any(Request.class)))
@@ -77,7 +82,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldNotAddItemRequestWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -90,24 +95,20 @@ public class ItemRequestServiceTest {
 
     @Test
     public void shouldGetItemRequestsByUserId() {
-        Request request = itemRequestFromDto(requestDto, user);
         Item item = new Item(
                 1,
                 "name",
                 "test",
                 true,
                 user,
-                request
+                itemRequestFromDto(requestDto, user)
         );
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
-                .when(memoryRequest.findByRequestorIdOrderByCreatedDesc(anyInt()))
-                .thenReturn(List.of(request));
-        Mockito
-                .when(memoryItem.findAllByRequestRequestorId(anyInt()))
-                .thenReturn(List.of(item));
+                .when(memoryRequest.findWithItemsByRequestorId(anyInt()))
+                .thenReturn(List.of(row(requestDto, item), row(requestDto, null)));
 
         List<RequestDto> itemRequests = requestService.getItemRequestsByUserId(1);
         RequestDto itemRequestDtoOutgoing = itemRequests.get(0);
@@ -121,7 +122,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldNotGetItemRequestsByUserIdWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -134,31 +135,28 @@ public class ItemRequestServiceTest {
 
     @Test
     public void shouldGetAllItemRequests() {
+        RequestDto older = new RequestDto(2, "Older description", null, Collections.emptyList());
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
-                .when(memoryRequest.findByRequestorIdNotOrderByCreatedDesc(anyInt(), any(Pageable.class)))
-                .thenReturn(
-                        List.of(itemRequestFromDto(requestDto, user))
-                );
-        Mockito
-                .when(memoryItem.findAllByRequestRequestorIdIn(any()))
-                .thenReturn(Collections.emptyList());
+                .when(memoryRequest.findWithItemsByRequestorIdNot(1, 5, 5))
+                .thenReturn(List.of(row(requestDto, null), row(older, null)));
 
-        List<RequestDto> itemRequests = requestService.getAllItemRequests(1, 0, 5);
+        List<RequestDto> itemRequests = requestService.getAllItemRequests(1, 5, 5);
         RequestDto itemRequestDtoOutgoing = itemRequests.get(0);
 
-        assertThat(itemRequests.size(), equalTo(1));
+        assertThat(itemRequests.size(), equalTo(2));
         assertThat(itemRequestDtoOutgoing.getId(), equalTo(requestDto.getId()));
         assertThat(itemRequestDtoOutgoing.getDescription(), equalTo(requestDto.getDescription()));
         assertThat(itemRequestDtoOutgoing.getItems(), equalTo(requestDto.getItems()));
+        assertThat(itemRequests.get(1).getId(), equalTo(older.getId()));
     }
 
     @Test
     public void shouldNotGetAllItemRequestsWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -172,7 +170,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldGetItemRequestById() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(memoryRequest.findById(anyInt()))
@@ -193,7 +191,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldNotGetItemRequestByIdWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -207,7 +205,7 @@ public class ItemRequestServiceTest {
     @Test
     public void shouldNotGetItemRequestByIdWhenItemRequestNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
                 .when(memoryRequest.findById(anyInt()))
@@ -220,4 +218,18 @@ public class ItemRequestServiceTest {
 
         assertThat(e.getMessage(), equalTo("Request requestId: 1"));
     }
-}
\ No newline at end of file
+
+    private RequestItemRow row(RequestDto request, Item item) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", request.getId());
+        columns.put("description", request.getDescription());
+        columns.put("created", request.getCreated());
+        if (item != null) {
+            columns.put("itemId", item.getId());
+            columns.put("itemName", item.getName());
+            columns.put("itemDescription", item.getDescription());
+            columns.put("itemAvailable", item.getIsAvailable());
+        }
+        return projectionFactory.createProjection(RequestItemRow.class, columns);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.config.ReplicaLagGuard;
+import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.search.InMemoryItemSearchIndex;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private MemoryItem memoryItem;
+    @Spy
+    private ReplicaLagGuard replicaLagGuard = new ReplicaLagGuard(Duration.ofSeconds(5), "", null);
+    @InjectMocks
+    private InMemoryItemSearchIndex itemSearchIndex;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        user = new User(1, "user1", "user1@email.com");
+        Request request = new Request(7, "Need a drill", new User(2, "user2", "user2@email.com"), LocalDateTime.now());
+        List<Item> items = List.of(
+                new Item(1, "hammer", "heavy drill bit", true, user, null),
+                new Item(2, "Cordless DRILL", "item description", true, user, request),
+                new Item(3, "drill", "item description", false, user, null),
+                new Item(4, "Drill press", "item description", true, user, null),
+                new Item(5, "saw", "item description", true, user, null)
+        );
+        Mockito
+                .when(memoryItem.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(items));
+        itemSearchIndex.rebuild();
+    }
+
+    @Test
+    public void shouldFindItemsByText() {
+        List<Item> found = itemSearchIndex.search("dRiLl", PageRequest.of(0, 10));
+
+        assertThat(ids(found), contains(4, 2, 1));
+        assertThat(found.get(1).getName(), equalTo("Cordless DRILL"));
+        assertThat(found.get(1).getRequest().getId(), equalTo(7));
+        Mockito.verify(memoryItem, Mockito.never()).findByText(any(String.class), any(Pageable.class));
+    }
+
+    @Test
+    public void shouldFindItemsByShortText() {
+        assertThat(ids(itemSearchIndex.search("Sa", PageRequest.of(0, 10))), contains(5));
+    }
+
+    @Test
+    public void shouldPageFoundItems() {
+        assertThat(ids(itemSearchIndex.search("drill", PageRequest.of(1, 2))), contains(1));
+        assertThat(itemSearchIndex.search("drill", PageRequest.of(2, 2)), empty());
+    }
+
+    @Test
+    public void shouldUpdateIndex() {
+        itemSearchIndex.index(new Item(3, "drill", "item description", true, user, null));
+        itemSearchIndex.index(new Item(4, "press", "item description", true, user, null));
+        itemSearchIndex.index(new Item(6, "drill bits", "item description", true, user, null));
+        itemSearchIndex.remove(1);
+
+        assertThat(ids(itemSearchIndex.search("drill", PageRequest.of(0, 10))), contains(3, 6, 2));
+        assertThat(itemSearchIndex.search("heavy", PageRequest.of(0, 10)), empty());
+    }
+
+    private List<Integer> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,35 +8,46 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.calendar.BookingCalendar;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingDtoDefault;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.MemoryBooking;
+import ru.practicum.shareit.config.ReplicaLagGuard;
 import ru.practicum.shareit.exception.model.*;
+import ru.practicum.shareit.item.cache.ItemDetailCache;
 import ru.practicum.shareit.item.model.comment.Comment;
 import ru.practicum.shareit.item.model.comment.CommentDto;
 import ru.practicum.shareit.item.model.item.Item;
+import ru.practicum.shareit.item.model.item.ItemDetail;
 import ru.practicum.shareit.item.model.item.ItemDto;
 import ru.practicum.shareit.item.repository.MemoryComment;
 import ru.practicum.shareit.item.repository.MemoryItem;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.repository.MemoryRequest;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.MemoryUser;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static ru.practicum.shareit.booking.model.BookingMapper.bookingFromDto;
 import static ru.practicum.shareit.booking.model.BookingStatus.*;
 import static ru.practicum.shareit.item.model.comment.CommentMapper.commentToDto;
@@ -48,11 +60,21 @@ public class ItemServiceTest {
     @Mock
     private MemoryUser memoryUser;
     @Mock
+    private UserCache userCache;
+    @Mock
     private MemoryBooking memoryBooking;
     @Mock
     private MemoryComment memoryComment;
     @Mock
     private MemoryRequest memoryRequest;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private BookingCalendar bookingCalendar;
+    @Spy
+    private ItemDetailCache itemDetailCache = new ItemDetailCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+    @Spy
+    private ReplicaLagGuard replicaLagGuard = new ReplicaLagGuard(Duration.ofSeconds(5), "", null);
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -121,6 +143,56 @@ public class ItemServiceTest {
         assertThat(itemDtoOutgoing.getComments().get(0).getId(), equalTo(comment.getId()));
     }
 
+    @Test
+    public void shouldCacheItemDetailsPerViewerUntilInvalidated() {
+        Mockito
+                .when(memoryItem.findById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(memoryComment.findByItemIdOrderByCreatedDesc(anyInt()))
+                .thenReturn(List.of(comment));
+
+        itemService.getItem(2, 1);
+        ItemDto cached = itemService.getItem(3, 1);
+        itemDetailCache.invalidate(1);
+        itemService.getItem(2, 1);
+
+        assertThat(cached.getLastBooking(), nullValue());
+        assertThat(cached.getNextBooking(), nullValue());
+        Mockito.verify(memoryComment, Mockito.times(2)).findByItemIdOrderByCreatedDesc(1);
+        Mockito.verify(memoryBooking, Mockito.never()).findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(
+                anyInt(), any(BookingStatus.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void shouldTagItemDetailsWithVersions() {
+        item.setVersion(3);
+        user.setVersion(2);
+        Mockito
+                .when(memoryItem.findById(anyInt()))
+                .thenReturn(Optional.of(item));
+        Mockito
+                .when(memoryBooking.findFirstByItemIdAndStatusNotAndStartAfterOrderByStartAsc(
+                        anyInt(),
+                        any(BookingStatus.class),
+                        any(LocalDateTime.class)
+                ))
+                .thenReturn(booking);
+        Mockito
+                .when(memoryComment.findByItemIdOrderByCreatedDesc(anyInt()))
+                .thenReturn(List.of(comment));
+
+        ItemDetail ownerView = itemService.getItemDetail(1, 1);
+        ItemDetail viewerView = itemService.getItemDetail(2, 1);
+        item.setVersion(4);
+        itemDetailCache.invalidate(1);
+        ItemDetail updated = itemService.getItemDetail(2, 1);
+
+        assertThat(ownerView.getEtag(), equalTo("\"1-3-o.0.1A-c1.2\""));
+        assertThat(viewerView.getEtag(), equalTo("\"1-3-c1.2\""));
+        assertThat(updated.getEtag(), not(equalTo(viewerView.getEtag())));
+    }
+
     @Test
     public void shouldNotGetItemByIdWhenItemNotFound() {
         Mockito
@@ -138,29 +210,36 @@ public class ItemServiceTest {
     @Test
     public void shouldGetItemsByUserId() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
         Mockito
-                .when(memoryItem.findByOwnerId(anyInt(), any(Pageable.class)))
-                .thenReturn(List.of(item));
+                .when(memoryItem.findDtoByOwnerIdOrderById(anyInt(), any(Pageable.class)))
+                .thenAnswer(invocation -> List.of(new ItemDto(
+                        item.getId(), item.getName(), item.getDescription(), item.getIsAvailable(), item.getRequest().getId())));
         Mockito
-                .when(memoryBooking.findAllByItemOwnerIdInAndStatusNotOrderByStart(
-                        List.of(1), REJECTED
-                ))
+                .when(memoryBooking.findLastAndNextByItemIdIn(eq(List.of(1)), any(LocalDateTime.class)))
                 .thenReturn(List.of());
         Mockito
-                .when(memoryComment.findByItemIdOrderByCreatedDesc(anyInt()))
+                .when(memoryComment.findAllByItemIdIn(List.of(1)))
                 .thenReturn(List.of(comment));
 
         List<ItemDto> items = itemService.getItems(1, 0, 5);
         ItemDto itemDtoOutgoing = items.get(0);
+        Booking lastBooking = new Booking(
+                2,
+                LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1),
+                item,
+                booking.getBooker(),
+                APPROVED
+        );
         Mockito
-                .when(memoryBooking.findAllByItemOwnerIdInAndStatusNotOrderByStart(
-                        List.of(1), REJECTED
-                ))
-                .thenReturn(List.of(booking, booking, booking));
-        itemService.getItems(1, 0, 5);
+                .when(memoryBooking.findLastAndNextByItemIdIn(eq(List.of(1)), any(LocalDateTime.class)))
+                .thenReturn(List.of(lastBooking, booking));
+        ItemDto itemWithBookings = itemService.getItems(1, 0, 5).get(0);
 
+        assertThat(itemWithBookings.getLastBooking().getId(), equalTo(lastBooking.getId()));
+        assertThat(itemWithBookings.getNextBooking().getId(), equalTo(booking.getId()));
         assertThat(items.size(), equalTo(1));
         assertThat(itemDtoOutgoing.getId(), equalTo(item.getId()));
         assertThat(itemDtoOutgoing.getName(), equalTo(item.getName()));
@@ -175,7 +254,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotGetItemsByUserIdWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -189,7 +268,7 @@ public class ItemServiceTest {
     @Test
     public void shouldAddItem() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryRequest.findById(anyInt()))
@@ -213,7 +292,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotAddItemWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -227,7 +306,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotAddItemWhenItemRequestNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryRequest.findById(anyInt()))
@@ -243,17 +322,14 @@ public class ItemServiceTest {
 
     @Test
     public void shouldUpdateItem() {
+        Mockito
+                .when(memoryItem.patch(1, 1, "new name", null, null, null))
+                .thenReturn(1);
         Mockito
                 .when(memoryItem.findById(anyInt()))
                 .thenReturn(Optional.of(item));
-        Mockito
-                .when(memoryRequest.findById(anyInt()))
-                .thenReturn(Optional.of(request));
-        Mockito
-                .when(memoryItem.save(any(Item.class)))
-                .then(returnsFirstArg());
 
-        ItemDto itemDtoOutgoing = itemService.putItem(1, itemToDto(new Item(1, null, null, null, user, request), null, null, null), 1);
+        ItemDto itemDtoOutgoing = itemService.putItem(1, itemToDto(new Item(1, "new name", " ", null, user, null), null, null, null), 1);
 
         assertThat(itemDtoOutgoing.getId(), equalTo(item.getId()));
         assertThat(itemDtoOutgoing.getName(), equalTo(item.getName()));
@@ -263,13 +339,18 @@ public class ItemServiceTest {
         assertThat(itemDtoOutgoing.getLastBooking(), nullValue());
         assertThat(itemDtoOutgoing.getNextBooking(), nullValue());
         assertThat(itemDtoOutgoing.getComments(), nullValue());
+        Mockito.verify(memoryItem, Mockito.never()).save(any(Item.class));
+        Mockito.verify(itemSearchIndex).index(item);
     }
 
     @Test
     public void shouldNotUpdateItemWhenItemNotFound() {
         Mockito
-                .when(memoryItem.findById(anyInt()))
-                .thenReturn(Optional.empty());
+                .when(memoryItem.patch(anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(0);
+        Mockito
+                .when(memoryItem.existsById(anyInt()))
+                .thenReturn(false);
 
         NotFoundException e = Assertions.assertThrows(
                 NotFoundException.class,
@@ -279,27 +360,11 @@ public class ItemServiceTest {
         assertThat(e.getMessage(), equalTo("Not found itemId: 1"));
     }
 
-    @Test
-    public void shouldNotUpdateItemWhenUserNotOwner() {
-        Mockito
-                .when(memoryItem.findById(anyInt()))
-                .thenReturn(Optional.of(item));
-        NotFoundException e = Assertions.assertThrows(
-                NotFoundException.class,
-                () -> itemService.putItem(2, itemToDto(item, null, null, null), 1)
-        );
-
-        assertThat(e.getMessage(), equalTo("Not found request requestId: 1"));
-    }
-
     @Test
     public void shouldNotUpdateItemWhenItemRequestNotFound() {
         Mockito
-                .when(memoryItem.findById(anyInt()))
-                .thenReturn(Optional.of(item));
-        Mockito
-                .when(memoryRequest.findById(anyInt()))
-                .thenReturn(Optional.empty());
+                .when(memoryItem.patch(anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenThrow(DataIntegrityViolationException.class);
 
         NotFoundException e = Assertions.assertThrows(
                 NotFoundException.class,
@@ -312,8 +377,11 @@ public class ItemServiceTest {
     @Test
     public void shouldNotUpdateOwnerItemException() {
         Mockito
-                .when(memoryItem.findById(anyInt()))
-                .thenReturn(Optional.of(item));
+                .when(memoryItem.patch(anyInt(), anyInt(), any(), any(), any(), any()))
+                .thenReturn(0);
+        Mockito
+                .when(memoryItem.existsById(anyInt()))
+                .thenReturn(true);
 
         OwnerItemException e = Assertions.assertThrows(
                 OwnerItemException.class,
@@ -326,18 +394,19 @@ public class ItemServiceTest {
     @Test
     public void shouldDeleteItem() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(true);
 
         itemService.deleteItem(1, 1);
 
         Mockito.verify(memoryItem).deleteById(anyInt());
+        Mockito.verify(itemSearchIndex).remove(1);
     }
 
     @Test
     public void shouldNotDeleteItemWhenUserNotFound() {
         Mockito
-                .when(memoryUser.existsById(anyInt()))
+                .when(userCache.existsById(anyInt()))
                 .thenReturn(false);
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -351,7 +420,7 @@ public class ItemServiceTest {
     @Test
     public void shouldFindItems() {
         Mockito
-                .when(memoryItem.findByText(any(String.class), any(Pageable.class)))
+                .when(itemSearchIndex.search(any(String.class), any(Pageable.class)))
                 .thenReturn(List.of(item));
 
         List<ItemDto> items = itemService.getItem("Test", 0, 5);
@@ -377,7 +446,7 @@ public class ItemServiceTest {
     @Test
     public void shouldAddComment() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryItem.findById(anyInt()))
@@ -426,7 +495,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotAddCommentWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundUserException e = Assertions.assertThrows(
@@ -440,7 +509,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotAddCommentWhenItemNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryItem.findById(anyInt()))
@@ -457,7 +526,7 @@ public class ItemServiceTest {
     @Test
     public void shouldNotAddCommentWhenBookingNotEnded() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
         Mockito
                 .when(memoryItem.findById(anyInt()))
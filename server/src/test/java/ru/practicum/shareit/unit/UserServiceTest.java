@@ -11,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.exception.model.NotFoundException;
 import ru.practicum.shareit.exception.model.ReplayException;
+import ru.practicum.shareit.user.cache.UserCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserDto;
 import ru.practicum.shareit.user.repository.MemoryUser;
@@ -30,6 +31,8 @@ import static ru.practicum.shareit.user.model.UserMapper.userToDto;
 public class UserServiceTest {
     @Mock
     private MemoryUser memoryUser;
+    @Mock
+    private UserCache userCache;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -43,7 +46,7 @@ public class UserServiceTest {
     @Test
     public void shouldGetUserById() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.of(user));
 
         UserDto userDtoOutgoing = userService.getUser(1);
@@ -56,7 +59,7 @@ public class UserServiceTest {
     @Test
     public void shouldNotGetUserByIdWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
+                .when(userCache.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
         NotFoundException e = Assertions.assertThrows(
@@ -112,24 +115,26 @@ public class UserServiceTest {
     @Test
     public void shouldUpdateUser() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
-                .thenReturn(Optional.of(user));
+                .when(memoryUser.patch(1, "new name", null))
+                .thenReturn(1);
         Mockito
-                .when(memoryUser.save(any(User.class)))
-                .then(returnsFirstArg());
+                .when(memoryUser.getReferenceById(anyInt()))
+                .thenReturn(user);
 
-        UserDto userDtoOutgoing = userService.putUser(user.getId(), userToDto(new User(1, null, null)));
+        UserDto userDtoOutgoing = userService.putUser(user.getId(), userToDto(new User(1, "new name", " ")));
 
         assertThat(userDtoOutgoing.getId(), equalTo(user.getId()));
         assertThat(userDtoOutgoing.getName(), equalTo(user.getName()));
         assertThat(userDtoOutgoing.getEmail(), equalTo(user.getEmail()));
+        Mockito.verify(userCache, Mockito.never()).findById(anyInt());
+        Mockito.verify(memoryUser, Mockito.never()).save(any(User.class));
     }
 
     @Test
     public void shouldNotUpdateUserWhenUserNotFound() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
-                .thenReturn(Optional.empty());
+                .when(memoryUser.patch(anyInt(), any(), any()))
+                .thenReturn(0);
 
         NotFoundException e = Assertions.assertThrows(
                 NotFoundException.class,
@@ -142,10 +147,7 @@ public class UserServiceTest {
     @Test
     public void shouldNotUpdateUserWhenEmailNotUnique() {
         Mockito
-                .when(memoryUser.findById(anyInt()))
-                .thenReturn(Optional.of(user));
-        Mockito
-                .when(memoryUser.save(any(User.class)))
+                .when(memoryUser.patch(anyInt(), any(), any()))
                 .thenThrow(DataIntegrityViolationException.class);
 
         ReplayException e = Assertions.assertThrows(